@@ -0,0 +1,336 @@
+package project5;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * ArrayMountain is a mountain that keeps its nodes in arrays instead of objects.
+ * It is the same AVL tree as BSTMountain, but every node is an index:
+ * the left child, the right child, the height and the reststop of 
+ * node i are at index i of four parallel arrays.
+ * A missing child is -1.
+ * There are no node objects, so there is less memory to allocate
+ * and the nodes that are visited together are close in memory.
+ * 
+ * Adding the same reststops in the same order gives the same tree,
+ * and the same paths, as BSTMountain.
+ * 
+ * @author Oyujin Ulziibaatar
+ */
+public class ArrayMountain {
+
+    private static final int NONE = -1;
+
+    int[] left = new int[16];
+    int[] right = new int[16];
+    byte[] height = new byte[16];
+    RestStop[] data = new RestStop[16];
+
+    int root = NONE;
+    private int size = 0;
+    private ArrayList<String> solution = new ArrayList<>();
+
+    /**
+     * Constuctor for new ArrayMountain object.
+     * It will create an empty mountain.
+     */
+    public ArrayMountain(){
+    }
+
+    /**
+     * This method returns the size of the given mountain.
+     * @return number of nodes in the mountain.
+     */
+    public int size(){
+        return size;
+    }
+
+    /**
+     * Getter for the paths added by goDown, in the order they were added.
+     * @return the solution, it is the list of the mountain, not a copy.
+     */
+    List<String> getSolution(){
+        return solution;
+    }
+
+    /**
+     * It adds the reststop to the mountain and rebalances it.
+     * If there is already a reststop with the same label, 
+     * the new one is not added.
+     * @param other is reststop object to be added to the mountain.
+     * @throws IllegalArgumentException if the reststop is null.
+     */
+    public void add(RestStop other) throws IllegalArgumentException{
+        if(other == null){
+            throw new IllegalArgumentException();
+        }
+        root = add(other, root);
+    }
+
+    /**
+     * It is the recursive add function.
+     * It goes down to the empty place of the reststop, adds it there,
+     * and on the way back up it updates the heights and rotates if needed.
+     * @param stop is the RestStop object to be added.
+     * @param current is the node the function is currently looking at.
+     * @return the node that is at the place of current after adding.
+     */
+    private int add(RestStop stop, int current){
+        //the empty place was found
+        if(current == NONE){
+            return newNode(stop);
+        }
+
+        int diff = stop.compareTo(data[current]);
+
+        //duplicate, nothing is added
+        if(diff == 0){
+            return current;
+        }
+        //the arrays can grow while adding, so the child is stored
+        //only after the recursive call returns
+        if(diff < 0){
+            int child = add(stop, left[current]);
+            left[current] = child;
+        }
+        else{
+            int child = add(stop, right[current]);
+            right[current] = child;
+        }
+
+        updateHeight(current);
+        return checkBF(current);
+    }
+
+    /**
+     * It puts a new leaf with the given reststop at the end of the arrays.
+     * @param stop is the reststop of the new node.
+     * @return the index of the new node.
+     */
+    private int newNode(RestStop stop){
+        if(size == data.length){
+            int capacity = size * 2;
+            left = Arrays.copyOf(left, capacity);
+            right = Arrays.copyOf(right, capacity);
+            height = Arrays.copyOf(height, capacity);
+            data = Arrays.copyOf(data, capacity);
+        }
+        int node = size;
+        left[node] = NONE;
+        right[node] = NONE;
+        height[node] = 0;
+        data[node] = stop;
+        size ++;
+        return node;
+    }
+
+    /**
+     * It checks the balance factor of the node and rotates if it is out of balance.
+     * @param node is the node to be checked.
+     * @return the node at the place of the given node after the rotation, 
+     * or the given node if there was no rotation.
+     */
+    int checkBF(int node){
+        int bf = balFact(node);
+        if(bf == -2){
+            return balFact(left[node]) == 1 ? rotatLR(node) : rotatLL(node);
+        }
+        if(bf == 2){
+            return balFact(right[node]) == -1 ? rotatRL(node) : rotatRR(node);
+        }
+        return node;
+    }
+
+    /**
+     * This function does LL rotation.
+     * @param node is the node that has imbalance(root of the subtree).
+     * @return the new root of the subtree after rotation.
+     */
+    int rotatLL(int node){
+        int b = left[node];
+        left[node] = right[b];
+        right[b] = node;
+        updateHeight(node);
+        updateHeight(b);
+        return b;
+    }
+
+    /**
+     * This function does RR rotation.
+     * @param node is the node that has imbalance(root of the subtree).
+     * @return the new root of the subtree after rotation.
+     */
+    int rotatRR(int node){
+        int b = right[node];
+        right[node] = left[b];
+        left[b] = node;
+        updateHeight(node);
+        updateHeight(b);
+        return b;
+    }
+
+    /**
+     * This function does LR rotation.
+     * @param node is the node that has imbalance(root of the subtree).
+     * @return the new root of the subtree after rotation.
+     */
+    int rotatLR(int node){
+        int b = left[node];
+        int c = right[b];
+        left[node] = right[c];
+        right[b] = left[c];
+        left[c] = b;
+        right[c] = node;
+        updateHeight(node);
+        updateHeight(b);
+        updateHeight(c);
+        return c;
+    }
+
+    /**
+     * This function does RL rotation.
+     * @param node is the node that has imbalance(root of the subtree).
+     * @return the new root of the subtree after rotation.
+     */
+    int rotatRL(int node){
+        int b = right[node];
+        int c = left[b];
+        right[node] = left[c];
+        left[b] = right[c];
+        right[c] = b;
+        left[c] = node;
+        updateHeight(node);
+        updateHeight(b);
+        updateHeight(c);
+        return c;
+    }
+
+    /**
+     * It returns the height of a node, an empty subtree has height -1.
+     * @param node is the index of the node or -1.
+     * @return the height.
+     */
+    private int heightOf(int node){
+        return node == NONE ? -1 : height[node];
+    }
+
+    /**
+     * This function updates the height of a given node
+     * from the heights of its children.
+     * @param node is the node that its height will be updated.
+     */
+    void updateHeight(int node){
+        height[node] = (byte) (Math.max(heightOf(left[node]), heightOf(right[node])) + 1);
+    }
+
+    /**
+     * This function calculates the balance factor for a given node:
+     * the height of the right child minus the height of the left child.
+     * @param node is the node the balance factor will be calculated for.
+     * @return the calculated balance factor.
+     */
+    int balFact(int node){
+        return heightOf(right[node]) - heightOf(left[node]);
+    }
+
+    /**
+     * This function goes down the mountain to find the paths
+     * that lead to the end of the tree, the same way as BSTMountain.
+     * The search uses an explicit stack of indices.
+     * Every legal path is added to the solution.
+     */
+    public void goDown(){
+        if(size == 0){
+            return;
+        }
+        //every frame is the node, the checkpoint of the supplies and the length of the path
+        int[] stack = new int[3 * 16];
+        int top = 0;
+        int[] trail = new int[16];
+        StringBuilder text = new StringBuilder();
+        Hiker hiker = new Hiker();
+
+        stack[top++] = root;
+        stack[top++] = -1;
+        stack[top++] = 0;
+        while(top > 0){
+            int length = stack[--top];
+            int checkpoint = stack[--top];
+            int stop = stack[--top];
+
+            //recover the supplies at the branch, if we came from the other side
+            if(checkpoint >= 0){
+                hiker.rollback(checkpoint);
+            }
+            if(!pass(hiker, stop)){
+                continue;
+            }
+
+            //add the reststop to the path
+            if(length == trail.length){
+                trail = Arrays.copyOf(trail, length * 2);
+            }
+            trail[length++] = stop;
+
+            //it is the end of the mountain, we have found a legal path
+            if(height[stop] == 0){
+                text.setLength(0);
+                for(int i = 0; i < length; i++){
+                    if(i > 0){
+                        text.append(' ');
+                    }
+                    data[trail[i]].appendLabel(text);
+                }
+                solution.add(text.toString());
+                continue;
+            }
+
+            //a child that is smaller than the parent by more than 1 is a cliff
+            boolean goLeft = heightOf(left[stop]) == height[stop] - 1;
+            boolean goRight = heightOf(right[stop]) == height[stop] - 1;
+            hiker.eat();
+
+            if(top + 6 > stack.length){
+                stack = Arrays.copyOf(stack, stack.length * 2);
+            }
+            //the right child is pushed first, so the left child is visited first
+            if(goLeft && goRight){
+                stack[top++] = right[stop];
+                stack[top++] = hiker.checkpoint();
+                stack[top++] = length;
+            }
+            else if(goRight){
+                stack[top++] = right[stop];
+                stack[top++] = -1;
+                stack[top++] = length;
+            }
+            if(goLeft){
+                stack[top++] = left[stop];
+                stack[top++] = -1;
+                stack[top++] = length;
+            }
+        }
+    }
+
+    /**
+     * The hiker arrives at the given reststop.
+     * The rules are the ones of MountainSearch, so both mountains give the same paths.
+     * @param hiker is the hiker going down the mountain.
+     * @param stop is the node the hiker is at.
+     * @return true if the hiker can stay on this path.
+     */
+    private boolean pass(Hiker hiker, int stop){
+        return MountainSearch.arrive(hiker, data[stop], height[stop] == 0) == MountainSearch.PASSED;
+    }
+
+    /**
+     * This function prints the solutions, the same as BSTMountain.
+     */
+    @Override
+    public String toString(){
+        for(int i=0; i<solution.size(); i++){
+            System.out.println(solution.get(i));
+        }
+        return "";
+    }
+}
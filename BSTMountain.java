@@ -1,5 +1,18 @@
 package project5;
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * BSTMountain class represents the mountain.
@@ -14,18 +27,31 @@ import java.util.ArrayList;
 public class BSTMountain {
 
     /** 
-     * This private class represents a node.
+     * This class represents a node.
      * It is the building block of the AVL mountain.  
+     * It is visible in the package so that the searches can walk the mountain.
      * The data field stores a RestStop.
      * It has references to its right and left nodes, if any.
      * It has field for storing the height of each node.
      */
-    private class Node {
+    static class Node {
 
         RestStop data;
         Node left;
         Node right;
         int height;
+        //the version of the mountain that made this node,
+        //nodes of older versions can be in a snapshot, so they are not changed
+        int version;
+        //the paths found by resolve from this node, null if the subtree has changed
+        IncrementalSolver.Solved memo;
+        //the least supplies a hiker needs when it gets to this node
+        //to have any chance of getting to the end of the mountain
+        int needFood;
+        int needRaft;
+        int needAxe;
+        //which children are not cliffs, LEFT and RIGHT bits
+        byte ways;
 
         /**
          * This is the constructor for new node.
@@ -38,9 +64,65 @@ public class BSTMountain {
         }
     }
 
+    /**
+     * This class is the iterator returned by solutions().
+     * It has its own search that is paused between the paths.
+     */
+    static class SolutionIterator implements Iterator<String> {
+
+        MountainSearch paths = new MountainSearch();
+        String next;
+
+        /**
+         * Constructor for the iterator.
+         * The search starts from the given root with a new hiker.
+         * @param root is the root of the mountain, it can be null.
+         */
+        SolutionIterator(Node root){
+            paths.reset(root);
+        }
+
+        @Override
+        public boolean hasNext(){
+            //go down until the next path, if it was not found yet
+            if(next == null && paths.next()){
+                next = paths.path();
+            }
+            return next != null;
+        }
+
+        @Override
+        public String next(){
+            if(!hasNext()){
+                throw new NoSuchElementException();
+            }
+            String path = next;
+            next = null;
+            return path;
+        }
+    }
+
+    //bits of Node.ways
+    static final byte LEFT = 1;
+    static final byte RIGHT = 2;
+
+    /**
+     * Subtrees lower than this height are not split by goDownParallel.
+     */
+    public static final int PARALLEL_THRESHOLD = 12;
+
     private Node root;
     private int size=0;
+    private int version=0;
     private ArrayList<String> solution=new ArrayList<>();
+    private MountainSearch search;
+    //the counters of the mountain, null if it is not counted
+    private MountainStats stats;
+    //the number of rotations, to sample the rotation events
+    private long rotations = 0;
+    //the number of changes of the reststops, the cached results belong to one revision
+    private long revision = 0;
+    private ResultCache cache;
 
     /**
      * Constuctor for new BSTMountain object.
@@ -51,6 +133,239 @@ public class BSTMountain {
         this.root = null;
     }
 
+    /**
+     * This function builds a new mountain from all the given reststops at once.
+     * The reststops are sorted by their labels, and if two reststops have 
+     * the same label, only the first one is kept, the same as add.
+     * The tree is built from the middle of the sorted reststops, 
+     * so it is balanced without any rotations.
+     * The shape of the tree can be different from adding the reststops one by one,
+     * so the paths can be different too.
+     * @param stops is the reststops of the mountain.
+     * @return the new mountain.
+     * @throws IllegalArgumentException if the collection or any of the reststops is null.
+     */
+    public static BSTMountain buildFrom(Collection<RestStop> stops) throws IllegalArgumentException{
+        MountainEvents.Build event = new MountainEvents.Build();
+        event.begin();
+        BSTMountain mountain = new BSTMountain();
+        mountain.checkForNull(stops);
+        RestStop[] sorted = stops.toArray(new RestStop[0]);
+        for(RestStop stop : sorted){
+            mountain.checkForNull(stop);
+        }
+        //the sort is stable, so the first of the duplicates stays first
+        Arrays.sort(sorted);
+        mountain.buildSorted(sorted);
+        commitBuild(event, "buildFrom", sorted.length, mountain.size);
+        return mountain;
+    }
+
+    /**
+     * This function builds a new mountain from reststops that are already 
+     * sorted by their labels, so it does not need to sort them again.
+     * If two reststops have the same label, only the first one is kept.
+     * @param stops is the sorted reststops of the mountain.
+     * @return the new mountain.
+     * @throws IllegalArgumentException if the list or any of the reststops is null,
+     * or if the reststops are not sorted.
+     */
+    public static BSTMountain buildFromSorted(List<RestStop> stops) throws IllegalArgumentException{
+        MountainEvents.Build event = new MountainEvents.Build();
+        event.begin();
+        BSTMountain mountain = new BSTMountain();
+        mountain.checkForNull(stops);
+        RestStop[] sorted = stops.toArray(new RestStop[0]);
+        for(int i = 0; i < sorted.length; i++){
+            mountain.checkForNull(sorted[i]);
+            if(i > 0 && sorted[i-1].compareTo(sorted[i]) > 0){
+                throw new IllegalArgumentException("The reststops have to be sorted by their labels.");
+            }
+        }
+        mountain.buildSorted(sorted);
+        commitBuild(event, "buildFromSorted", sorted.length, mountain.size);
+        return mountain;
+    }
+
+    /**
+     * It records the event of building from a batch of reststops,
+     * if the event is enabled.
+     * @param event is the event, it has been begun.
+     * @param operation is the name of the function that built the mountain.
+     * @param given is the number of reststops given.
+     * @param added is the number of reststops added.
+     */
+    private static void commitBuild(MountainEvents.Build event, String operation, int given, int added){
+        if(event.shouldCommit()){
+            event.operation = operation;
+            event.given = given;
+            event.added = added;
+            event.commit();
+        }
+    }
+
+    /**
+     * It removes the duplicates from the sorted reststops
+     * and builds the balanced tree out of them.
+     * @param sorted is the sorted reststops, it is changed by this function.
+     */
+    private void buildSorted(RestStop[] sorted){
+        //keep only the first reststop of every label
+        int count = 0;
+        for(int i = 0; i < sorted.length; i++){
+            if(count == 0 || sorted[count-1].compareTo(sorted[i]) != 0){
+                sorted[count++] = sorted[i];
+            }
+        }
+        this.root = build(sorted, 0, count - 1);
+        this.size = count;
+    }
+
+    /**
+     * It builds a balanced subtree out of the sorted reststops recursively.
+     * The middle reststop becomes the root of the subtree,
+     * the smaller ones go to the left and the bigger ones go to the right.
+     * Since the two sides differ by at most one reststop,
+     * their heights differ by at most one.
+     * @param sorted is the sorted reststops without duplicates.
+     * @param low is the index of the first reststop of the subtree.
+     * @param high is the index of the last reststop of the subtree.
+     * @return the root of the subtree, null if it is empty.
+     */
+    private Node build(RestStop[] sorted, int low, int high){
+        if(low > high){
+            return null;
+        }
+        int mid = (low + high) >>> 1;
+        Node node = newNode(sorted[mid]);
+        node.left = build(sorted, low, mid - 1);
+        node.right = build(sorted, mid + 1, high);
+        updateHeight(node);
+        return node;
+    }
+
+    /**
+     * It sets the counters of the mountain.
+     * From now on add counts its comparisons, the rotations are counted by type,
+     * and goDown, countPaths and hasPath count the nodes they visit,
+     * the branches they cut off and the paths they find.
+     * goDown also adds its time to the search phase.
+     * @param stats is the counters, null to stop counting.
+     */
+    public void setStats(MountainStats stats){
+        this.stats = stats;
+    }
+
+    /**
+     * Getter for the counters of the mountain.
+     * @return the counters, or null if the mountain is not counted.
+     */
+    public MountainStats getStats(){
+        return stats;
+    }
+
+    /**
+     * It sets the cache of the results of the searches.
+     * With a cache, goDown, countPaths and hasPath give the remembered result
+     * when the same search is made again and the mountain has not changed since.
+     * The lists of paths are then shared by the cache, and they cannot be changed.
+     * The cache belongs to this mountain until another cache is set,
+     * or until this mountain is no longer used.
+     * @param cache is the cache, null to stop caching.
+     * @throws IllegalArgumentException if the cache belongs to another mountain.
+     */
+    public void setCache(ResultCache cache) throws IllegalArgumentException{
+        if(cache != null){
+            cache.bind(this);
+        }
+        if(this.cache != null && this.cache != cache){
+            this.cache.release(this);
+        }
+        this.cache = cache;
+    }
+
+    /**
+     * Getter for the cache of the results of the searches.
+     * @return the cache, or null if the results are not cached.
+     */
+    public ResultCache getCache(){
+        return cache;
+    }
+
+    /**
+     * Getter for the revision of the mountain.
+     * It goes up every time a reststop is added, removed or updated.
+     * @return the revision.
+     */
+    public long getRevision(){
+        return revision;
+    }
+
+    /**
+     * This function saves the mountain to a binary file, see MountainFile.
+     * The shape of the tree is saved, so the loaded mountain has the same paths.
+     * @param file is the file to save to, it is replaced if it exists.
+     * @throws IOException if the file cannot be written.
+     * @throws IllegalArgumentException if the file is null.
+     */
+    public void save(File file) throws IOException, IllegalArgumentException{
+        checkForNull(file);
+        MountainFile.save(root, size, file);
+    }
+
+    /**
+     * This function loads a mountain saved by save.
+     * The nodes are made in the saved shape, without rotating,
+     * and the tree is checked while it is read.
+     * @param file is the saved mountain.
+     * @return the mountain.
+     * @throws IOException if the file cannot be read or it is not a saved mountain.
+     * @throws IllegalArgumentException if the file is null, or the saved tree is not
+     * a valid mountain: the number of nodes is not the one in the header,
+     * the labels are not in order, or a saved height is wrong or not balanced.
+     */
+    public static BSTMountain load(File file) throws IOException, IllegalArgumentException{
+        return load(file, null);
+    }
+
+    /**
+     * This function loads a mountain saved by save,
+     * and keeps the labels in the given dictionary.
+     * @param file is the saved mountain.
+     * @param dictionary is the dictionary of the labels, null to keep the labels as Strings.
+     * @return the mountain.
+     * @throws IOException if the file cannot be read or it is not a saved mountain.
+     * @throws IllegalArgumentException if the file is null, or the saved tree is not
+     * a valid mountain: the number of nodes is not the one in the header,
+     * the labels are not in order, or a saved height is wrong or not balanced.
+     */
+    public static BSTMountain load(File file, LabelDictionary dictionary) throws IOException, IllegalArgumentException{
+        BSTMountain mountain = new BSTMountain();
+        mountain.checkForNull(file);
+        MountainFile.load(file, dictionary, mountain);
+        return mountain;
+    }
+
+    /**
+     * Getter for the root of the mountain as it is now.
+     * Unlike snapshot, the nodes are not kept for a snapshot,
+     * so the next change can change them.
+     * @return the root, null if the mountain is empty.
+     */
+    Node root(){
+        return root;
+    }
+
+    /**
+     * It sets the nodes of a mountain loaded by MountainFile.
+     * @param root is the root of the loaded tree, null if it is empty.
+     * @param size is the number of nodes, checked against the file.
+     */
+    void restore(Node root, int size){
+        this.root = root;
+        this.size = size;
+    }
+
     /**
      * This method returns the size of the given mountain.
      * @return number of nodes in the mountain.
@@ -68,15 +383,22 @@ public class BSTMountain {
      */
     public void add(RestStop other){
         checkForNull(other);
+        if(stats != null){
+            stats.inserts ++;
+        }
 
         //if the mountain is empty, it will add the reststop to the root
         if(root == null){
-            root = new Node(other);
+            root = newNode(other);
             updateHeight(root);
             size ++;
+            revision ++;
             return;
         }
         
+        //the nodes on the way down are copied if they are in a snapshot
+        root = own(root);
+
         //get the reference of the new root 
         Node rotat = add(other, root);
         //if the reference is null, it means is was not added.
@@ -96,6 +418,7 @@ public class BSTMountain {
         }
         //increment the size
         size ++;
+        revision ++;
     
     }
 
@@ -113,6 +436,9 @@ public class BSTMountain {
 
         //first compare the reststops
         int diff = stop.compareTo(current.data);
+        if(stats != null){
+            stats.comparisons ++;
+        }
 
         //if it is 0, it means there is a duplicate,
         //so the function will return null and terminate
@@ -127,12 +453,13 @@ public class BSTMountain {
             //add the restsop, and return the node it 
             //was added to
             if(current.left == null){
-                current.left = new Node(stop);
+                current.left = newNode(stop);
                 updateHeight(current.left);
                 return current;
             }
 
             //if the left is not empty, we will go to the node.
+            current.left = own(current.left);
             Node rotat = add(stop, current.left);
             //duplicate has been found
             if(rotat == null){
@@ -154,12 +481,13 @@ public class BSTMountain {
 
             //if the right node is empty, directly add it
             if(current.right == null){
-                current.right = new Node(stop);
+                current.right = newNode(stop);
                 updateHeight(current.right);
                 //return the reference of the node it was added to
                 return current;
             }
             //go right, get the reference of the node it was added to
+            current.right = own(current.right);
             Node rotat = add(stop, current.right);
             //check for imbalance
             if(rotat == null){
@@ -178,6 +506,370 @@ public class BSTMountain {
         return current;
     }
 
+    /**
+     * This function adds all the given reststops to the mountain at once.
+     * The reststops are sorted and built into a balanced tree, 
+     * which is then merged with the mountain by splitting and joining subtrees,
+     * so a big batch does not go down from the root once per reststop.
+     * A reststop with the same label as one already in the mountain is not added,
+     * and if two reststops of the batch have the same label, only the first one is added,
+     * the same as calling add for each of them in order.
+     * The shape of the mountain can be different from calling add, 
+     * so the paths can be different too.
+     * @param stops is the reststops to be added.
+     * @return the number of reststops that were added.
+     * @throws IllegalArgumentException if the collection or any of the reststops is null.
+     */
+    public int addAll(Collection<RestStop> stops) throws IllegalArgumentException{
+        MountainEvents.Build event = new MountainEvents.Build();
+        event.begin();
+        checkForNull(stops);
+        RestStop[] sorted = stops.toArray(new RestStop[0]);
+        for(RestStop stop : sorted){
+            checkForNull(stop);
+        }
+        //the sort is stable, so the first of the duplicates stays first
+        Arrays.sort(sorted);
+
+        //keep only the first reststop of every label
+        int count = 0;
+        for(int i = 0; i < sorted.length; i++){
+            if(count == 0 || sorted[count-1].compareTo(sorted[i]) != 0){
+                sorted[count++] = sorted[i];
+            }
+        }
+        if(count == 0){
+            commitBuild(event, "addAll", sorted.length, 0);
+            return 0;
+        }
+
+        int before = size;
+        //the reststops of the batch that are already in the mountain are taken off by union
+        size += count;
+        root = union(root, build(sorted, 0, count - 1));
+        if(size != before){
+            revision ++;
+        }
+        commitBuild(event, "addAll", sorted.length, size - before);
+        return size - before;
+    }
+
+    /**
+     * It merges two subtrees into one.
+     * The first subtree is split around its root, and the second subtree
+     * is split at the same label, then the two sides are merged on their own
+     * and joined back with the root of the first subtree in the middle.
+     * If a label is in both subtrees, the reststop of the first one is kept.
+     * @param mountain is the root of the subtree of the mountain.
+     * @param batch is the root of the subtree of the new reststops.
+     * @return the root of the merged subtree.
+     */
+    private Node union(Node mountain, Node batch){
+        if(batch == null){
+            return mountain;
+        }
+        if(mountain == null){
+            return batch;
+        }
+        Node middle = own(mountain);
+        Node[] halves = split(batch, middle.data);
+        Node left = union(middle.left, halves[0]);
+        Node right = union(middle.right, halves[1]);
+        return join(left, middle, right);
+    }
+
+    /**
+     * It splits a subtree into the reststops smaller than the given one
+     * and the reststops bigger than it.
+     * If the subtree has a reststop with the same label, it is taken off
+     * and the size of the mountain is decremented.
+     * @param current is the root of the subtree to be split.
+     * @param key is the reststop to split at.
+     * @return the root of the smaller side and the root of the bigger side.
+     */
+    private Node[] split(Node current, RestStop key){
+        if(current == null){
+            return new Node[2];
+        }
+        current = own(current);
+        int diff = key.compareTo(current.data);
+        if(diff == 0){
+            size --;
+            return new Node[]{current.left, current.right};
+        }
+        if(diff < 0){
+            Node[] halves = split(current.left, key);
+            halves[1] = join(halves[1], current, current.right);
+            return halves;
+        }
+        Node[] halves = split(current.right, key);
+        halves[0] = join(current.left, current, halves[0]);
+        return halves;
+    }
+
+    /**
+     * It joins two subtrees with a node in the middle.
+     * Every reststop of the left subtree is smaller than the middle one,
+     * and every reststop of the right subtree is bigger.
+     * The lower subtree is hung from the side of the higher one,
+     * where the heights are the same, and the nodes above it are rebalanced.
+     * @param left is the root of the left subtree, it can be null.
+     * @param middle is the middle node, it should be owned by this version.
+     * @param right is the root of the right subtree, it can be null.
+     * @return the root of the joined subtree.
+     */
+    private Node join(Node left, Node middle, Node right){
+        int leftHeight = left == null ? -1 : left.height;
+        int rightHeight = right == null ? -1 : right.height;
+
+        //the heights are close enough, the middle node becomes the root
+        if(Math.abs(leftHeight - rightHeight) <= 1){
+            middle.left = left;
+            middle.right = right;
+            updateHeight(middle);
+            return middle;
+        }
+
+        //go down the side of the higher subtree
+        Node current = leftHeight > rightHeight ? own(left) : own(right);
+        if(leftHeight > rightHeight){
+            current.right = join(current.right, middle, right);
+        }
+        else{
+            current.left = join(left, middle, current.left);
+        }
+        updateHeight(current);
+        ownForRotation(current);
+        Node newNode = checkBF(current);
+        return newNode != null ? newNode : current;
+    }
+
+    /**
+     * It checks if the mountain has a reststop with the given label.
+     * @param label is the label to look for.
+     * @return true if there is a reststop with the label.
+     * @throws IllegalArgumentException if the label is null.
+     */
+    public boolean contains(String label) throws IllegalArgumentException{
+        checkForNull(label);
+        return find(new RestStop(label)) != null;
+    }
+
+    /**
+     * It finds the node of the reststop with the same label as the given one.
+     * @param stop is the reststop to look for.
+     * @return the node, or null if there is none.
+     */
+    private Node find(RestStop stop){
+        Node current = root;
+        while(current != null){
+            int diff = stop.compareTo(current.data);
+            if(diff == 0){
+                return current;
+            }
+            current = diff < 0 ? current.left : current.right;
+        }
+        return null;
+    }
+
+    /**
+     * It removes the reststop with the given label from the mountain
+     * and rebalances the mountain.
+     * @param label is the label of the reststop to be removed.
+     * @return true if the reststop was removed, false if there was none.
+     * @throws IllegalArgumentException if the label is null.
+     */
+    public boolean remove(String label) throws IllegalArgumentException{
+        checkForNull(label);
+        RestStop key = new RestStop(label);
+        if(find(key) == null){
+            return false;
+        }
+        root = remove(key, root);
+        size --;
+        revision ++;
+        return true;
+    }
+
+    /**
+     * It is the recursive remove function.
+     * It goes down to the reststop, removes it, and on the way back up
+     * updates the heights and rotates if needed.
+     * If the node has two children, it takes the reststop of the
+     * smallest node of its right subtree, and that node is removed instead.
+     * @param key is the reststop with the label to be removed.
+     * @param current is the node the function is currently looking at.
+     * @return the node at the place of current after removing.
+     */
+    private Node remove(RestStop key, Node current){
+        current = own(current);
+        int diff = key.compareTo(current.data);
+
+        if(diff < 0){
+            current.left = remove(key, current.left);
+        }
+        else if(diff > 0){
+            current.right = remove(key, current.right);
+        }
+        else{
+            //with at most one child, the child takes the place of the node
+            if(current.left == null){
+                return current.right;
+            }
+            if(current.right == null){
+                return current.left;
+            }
+            //take the next reststop in order, and remove it from the right
+            Node next = current.right;
+            while(next.left != null){
+                next = next.left;
+            }
+            current.data = next.data;
+            current.right = remove(next.data, current.right);
+        }
+
+        updateHeight(current);
+        ownForRotation(current);
+        Node newNode = checkBF(current);
+        return newNode != null ? newNode : current;
+    }
+
+    /**
+     * It changes the supplies and the obstacles of a reststop in the mountain:
+     * the reststop with the same label is replaced by the given one.
+     * The shape of the mountain does not change.
+     * A reststop that is in the mountain should be changed with this function,
+     * and not with its setters, so resolve knows what has changed.
+     * @param stop is the new reststop.
+     * @return true if it was replaced, false if there is no reststop with the label.
+     * @throws IllegalArgumentException if the reststop is null.
+     */
+    public boolean update(RestStop stop) throws IllegalArgumentException{
+        checkForNull(stop);
+        if(find(stop) == null){
+            return false;
+        }
+        root = update(stop, root);
+        revision ++;
+        return true;
+    }
+
+    /**
+     * It is the recursive update function.
+     * Every node on the way down is updated, since its subtree has changed.
+     * @param stop is the new reststop.
+     * @param current is the node the function is currently looking at.
+     * @return the node at the place of current.
+     */
+    private Node update(RestStop stop, Node current){
+        current = own(current);
+        int diff = stop.compareTo(current.data);
+        if(diff < 0){
+            current.left = update(stop, current.left);
+        }
+        else if(diff > 0){
+            current.right = update(stop, current.right);
+        }
+        else{
+            current.data = stop;
+        }
+        updateHeight(current);
+        return current;
+    }
+
+    /**
+     * This function finds every legal path, the same as goDown,
+     * but it remembers the paths of every subtree.
+     * The next time it is called, only the subtrees that have changed since,
+     * or that the hiker gets to with different supplies, are searched again:
+     * these are the subtrees on the way to an added, removed, updated 
+     * or rotated node, and below it.
+     * The paths are not added to the solution.
+     * @return the legal paths, in the same order as goDown.
+     */
+    public List<String> resolve(){
+        List<String> paths = new ArrayList<>();
+        if(root == null){
+            return paths;
+        }
+        IncrementalSolver.Solved solved = IncrementalSolver.solve(root, 0, 0, 0);
+        IncrementalSolver.render(root, solved, paths);
+        return paths;
+    }
+
+    /**
+     * It makes a new node of the current version of the mountain.
+     * @param stop is the reststop of the node.
+     * @return the new node.
+     */
+    private Node newNode(RestStop stop){
+        Node node = new Node(stop);
+        node.version = version;
+        return node;
+    }
+
+    /**
+     * It returns a node that can be changed by this version of the mountain.
+     * If the node was made before the last snapshot, it is copied,
+     * so the snapshot still sees the old node.
+     * Only the nodes on the way down are copied, the rest of the tree is shared.
+     * @param node is the node that will be changed.
+     * @return the node itself, or its copy.
+     */
+    private Node own(Node node){
+        if(node == null || node.version == version){
+            return node;
+        }
+        Node copy = newNode(node.data);
+        copy.left = node.left;
+        copy.right = node.right;
+        copy.height = node.height;
+        copy.needFood = node.needFood;
+        copy.needRaft = node.needRaft;
+        copy.needAxe = node.needAxe;
+        copy.ways = node.ways;
+        return copy;
+    }
+
+    /**
+     * If the node is out of balance, it makes sure the nodes that 
+     * checkBF will rotate can be changed by this version of the mountain.
+     * Adding only rotates nodes on the way down, which are copied already, 
+     * but removing can rotate the other side of the node.
+     * @param node is the node that will be checked by checkBF.
+     */
+    private void ownForRotation(Node node){
+        int bf = balFact(node);
+        if(bf == -2){
+            node.left = own(node.left);
+            if(balFact(node.left) == 1){
+                node.left.right = own(node.left.right);
+            }
+        }
+        else if(bf == 2){
+            node.right = own(node.right);
+            if(balFact(node.right) == -1){
+                node.right.left = own(node.right.left);
+            }
+        }
+    }
+
+    /**
+     * This function takes a snapshot of the mountain.
+     * The snapshot never changes: after it is taken, add copies the nodes 
+     * it changes instead of changing them, so the snapshot can be searched 
+     * on other threads, without locks, while this mountain keeps adding.
+     * Old snapshots are collected by the garbage collector when they are not used.
+     * This function and add should be called from the same thread.
+     * @return the snapshot of the mountain as it is now.
+     */
+    public MountainSnapshot snapshot(){
+        MountainSnapshot snap = new MountainSnapshot(root, size);
+        //nodes from now on are of the next version
+        version ++;
+        return snap;
+    }
+
     /**
      * It checks the balance factors of the node given.
      * If there is imblance at the given node,
@@ -210,6 +902,26 @@ public class BSTMountain {
         return null;
     }
 
+    /**
+     * It records one out of MountainEvents.ROTATION_SAMPLE rotations
+     * as an event, if the event is enabled.
+     * @param type is the type of the rotation.
+     * @param node is the node that has imbalance.
+     */
+    private void sampleRotation(String type, Node node){
+        rotations ++;
+        if(rotations % MountainEvents.ROTATION_SAMPLE != 0){
+            return;
+        }
+        MountainEvents.Rotation event = new MountainEvents.Rotation();
+        if(event.isEnabled()){
+            event.type = type;
+            event.height = node.height;
+            event.sampleRate = MountainEvents.ROTATION_SAMPLE;
+            event.commit();
+        }
+    }
+
     /**
      * This function does LL rotation.
      * It is a rotation when the left node of a given node
@@ -222,6 +934,10 @@ public class BSTMountain {
      */
     public Node rotatLL(Node node){
         checkForNull(node);
+        if(stats != null){
+            stats.rotationsLL ++;
+        }
+        sampleRotation("LL", node);
         Node B = node.left;
         node.left = B.right;
         B.right = node;
@@ -243,6 +959,10 @@ public class BSTMountain {
      */
     public Node rotatRR(Node node){
         checkForNull(node);
+        if(stats != null){
+            stats.rotationsRR ++;
+        }
+        sampleRotation("RR", node);
         Node B = node.right;
         node.right = B.left;
         B.left = node;
@@ -264,6 +984,10 @@ public class BSTMountain {
      */
     public Node rotatLR(Node node){
         checkForNull(node);
+        if(stats != null){
+            stats.rotationsLR ++;
+        }
+        sampleRotation("LR", node);
         Node B = node.left;
         Node C = B.right;
 
@@ -291,6 +1015,10 @@ public class BSTMountain {
      */
     public Node rotatRL(Node node){
         checkForNull(node);
+        if(stats != null){
+            stats.rotationsRL ++;
+        }
+        sampleRotation("RL", node);
         Node B = node.right;
         Node C = B.left;
 
@@ -311,6 +1039,11 @@ public class BSTMountain {
      * It will look at the node's left child and right child
      * Compare their heights, and pick the max, add 1, and
      * set it as the given node's height.
+     * It is called for every node whose subtree has changed,
+     * so it also updates what the node knows about its subtree:
+     * which children are cliffs and the least supplies needed to go down,
+     * and it forgets the paths remembered by resolve.
+     * The children should be updated before their parent.
      * @param node is the node that its height will be updated
      */
     public void updateHeight (Node node){
@@ -335,6 +1068,58 @@ public class BSTMountain {
         else{
             node.height = java.lang.Math.max(node.right.height, node.left.height) + 1;
         }
+
+        updateNeeds(node);
+        node.memo = null;
+    }
+
+    /**
+     * It works out which children of the node are not cliffs, and
+     * the least food, rafts and axes a hiker needs when it gets to the node
+     * to get to the end of the mountain on any path below it.
+     * Every supply is counted on its own, from the child that needs the least of it,
+     * so a hiker with less than any of them has no legal path from the node,
+     * and the searches can skip the whole subtree.
+     * @param node is the node to be updated, its height should be up to date.
+     */
+    private void updateNeeds(Node node){
+        RestStop stop = node.data;
+        byte ways = 0;
+        if(node.left != null && node.left.height == node.height-1){
+            ways |= LEFT;
+        }
+        if(node.right != null && node.right.height == node.height-1){
+            ways |= RIGHT;
+        }
+        node.ways = ways;
+
+        //at the end of the mountain the hiker only needs to pass the obstacles
+        if(node.height == 0){
+            node.needFood = 0;
+            node.needRaft = Math.max(0, stop.getRiver() - stop.getRaft());
+            node.needAxe = Math.max(0, stop.getFallenTree() - stop.getAxe());
+            return;
+        }
+
+        //the least the hiker needs when it gets to the children
+        int food = Integer.MAX_VALUE;
+        int raft = Integer.MAX_VALUE;
+        int axe = Integer.MAX_VALUE;
+        if((ways & LEFT) != 0){
+            food = node.left.needFood;
+            raft = node.left.needRaft;
+            axe = node.left.needAxe;
+        }
+        if((ways & RIGHT) != 0){
+            food = Math.min(food, node.right.needFood);
+            raft = Math.min(raft, node.right.needRaft);
+            axe = Math.min(axe, node.right.needAxe);
+        }
+
+        //one food is eaten to go down, and the obstacles use rafts and axes
+        node.needFood = Math.max(0, food + 1 - stop.getFood());
+        node.needRaft = Math.max(0, raft + stop.getRiver() - stop.getRaft());
+        node.needAxe = Math.max(0, axe + stop.getFallenTree() - stop.getAxe());
     }
 
     /**
@@ -365,125 +1150,371 @@ public class BSTMountain {
     }
 
     /**
-     * It is the wrapper function for the recursive goDown function.
+     * Getter for the paths added by goDown and goDownParallel, in the order they were added.
+     * @return the solution, it is the list of the mountain, not a copy.
+     */
+    List<String> getSolution(){
+        return solution;
+    }
+
+    /**
+     * This function goes down the mountain to find
+     * the paths that lead to the end of the tree.
      * It checks if the tree is empty,
-     * if not, then it will create a string called path,
-     * new hiker object, and run the recursive goDown function.
+     * if not, then it will run the iterative search
+     * from the root and add every legal path to the solution.
+     * With a cache, the paths of the last search are added again
+     * if the mountain has not changed since.
      */
+    @SuppressWarnings("unchecked")
     public void goDown(){
         if (size == 0){
             return;
         }
-        String path = "";
-        Hiker hiker = new Hiker();
-        goDown(this.root, path, hiker);
+        MountainEvents.GoDown event = new MountainEvents.GoDown();
+        event.begin();
+        long start = System.nanoTime();
+        ResultCache.Key key = null;
+        if(cache != null){
+            key = new ResultCache.Key(ResultCache.PATHS, 0, 0, 0, Integer.MAX_VALUE);
+            Object cached = cache.get(revision, key);
+            if(cached != null){
+                List<String> paths = (List<String>) cached;
+                this.solution.addAll(paths);
+                if(stats != null){
+                    stats.addTime(MountainStats.Phase.SEARCH, System.nanoTime() - start);
+                }
+                commitGoDown(event, "all", 0, paths.size(), true);
+                return;
+            }
+        }
+        //with a cache, the paths are kept on their own list to give it to the cache
+        List<String> paths = cache == null ? this.solution : new ArrayList<>();
+        MountainSearch search = startSearch(0, 0, 0);
+        long found = 0;
+        while(search.next()){
+            paths.add(search.path());
+            found ++;
+        }
+        if(cache != null){
+            this.solution.addAll(paths);
+            cache.put(revision, key, Collections.unmodifiableList(paths));
+        }
+        if(stats != null){
+            stats.addTime(MountainStats.Phase.SEARCH, System.nanoTime() - start);
+        }
+        commitGoDown(event, "all", search.visited(), found, false);
     }
 
     /**
-     * This function goes through the mountain
-     * recursively to find the path that leads
-     * to the end of the tree.
-     * @param stop is the node the function is currently at.
-     * @param res is the string that is containing the paths taken.
-     * @param person is the hiker that is going down the mountain.
-     * @return boolean value that indicates if the path is legal.
+     * This function goes down the mountain like goDown, but every legal path
+     * is written to the writer as soon as it is found, one per line,
+     * instead of being added to the solution.
+     * The bytes are the same as printing the solution, without the empty line 
+     * that printing the mountain adds at the end.
+     * The cache is not used, so the paths are never all kept in memory.
+     * The writer is not flushed.
+     * With a MountainStats, the time spent writing the paths is the print phase,
+     * and only the rest is the search phase.
+     * @param out is the writer of the paths.
+     * @return the number of legal paths.
+     * @throws IOException if the writer cannot write.
+     * @throws IllegalArgumentException if the writer is null.
      */
-    private boolean goDown(Node stop, String res, Hiker person){
-        
-        //get the supplies from the reststop, if any
-        person.getSupplies(stop.data);
-
-        //if a person does not have food and the has not gotten to the foot of the mountain
-        //cannot go down, so this path is no legal
-        if(person.getFood()==0 && stop.height!=0){
-            return false;
+    public long goDown(SolutionWriter out) throws IOException, IllegalArgumentException{
+        checkForNull(out);
+        MountainEvents.GoDown event = new MountainEvents.GoDown();
+        event.begin();
+        long start = System.nanoTime();
+        MountainSearch search = startSearch(0, 0, 0);
+        long found = 0;
+        long printTime = 0;
+        while(search.next()){
+            if(stats != null){
+                //the writes are timed on their own, they are not a part of the search
+                long writeStart = System.nanoTime();
+                search.writePath(out);
+                printTime += System.nanoTime() - writeStart;
+            }
+            else{
+                search.writePath(out);
+            }
+            found ++;
+        }
+        if(stats != null){
+            stats.addTime(MountainStats.Phase.SEARCH, System.nanoTime() - start - printTime);
+            stats.addTime(MountainStats.Phase.PRINT, printTime);
         }
+        commitGoDown(event, "write", search.visited(), found, false);
+        return found;
+    }
 
-        //try to pass fallentree obstacle if the reststop has one.
-        if(stop.data.getFallenTree() != 0){
-            if(!person.passFallenTree(stop.data.getFallenTree())){
-                return false;
+    /**
+     * This function finds only the first legal paths, in the same order as goDown.
+     * The search stops as soon as it has found the given number of paths.
+     * The paths are not added to the solution.
+     * @param limit is the largest number of paths to find.
+     * @return the first legal paths, at most limit of them.
+     * @throws IllegalArgumentException if the limit is negative.
+     */
+    public List<String> goDown(int limit) throws IllegalArgumentException{
+        return goDown(0, 0, 0, limit);
+    }
+
+    /**
+     * This function finds only the first legal paths of a hiker
+     * that starts with the given supplies, instead of nothing.
+     * The search stops as soon as it has found the given number of paths.
+     * The paths are not added to the solution.
+     * @param food is the number of foods the hiker starts with.
+     * @param raft is the number of rafts the hiker starts with.
+     * @param axe is the number of axes the hiker starts with.
+     * @param limit is the largest number of paths to find.
+     * @return the first legal paths, at most limit of them, in the same order as goDown.
+     * @throws IllegalArgumentException if the limit or any of the supplies is negative.
+     */
+    @SuppressWarnings("unchecked")
+    public List<String> goDown(int food, int raft, int axe, int limit) throws IllegalArgumentException{
+        if(limit < 0){
+            throw new IllegalArgumentException("The limit has to be positive integer.");
+        }
+        ResultCache.Key key = null;
+        if(cache != null){
+            key = new ResultCache.Key(ResultCache.PATHS, food, raft, axe, limit);
+            Object cached = cache.get(revision, key);
+            if(cached != null){
+                return (List<String>) cached;
             }
         }
 
-        //try to pass river obstacle if the reststop has one.
-        if(stop.data.getRiver() != 0){
-            if(!person.passRiver(stop.data.getRiver())){
-                return false;
+        List<String> paths = new ArrayList<>();
+        if(limit > 0){
+            MountainEvents.GoDown event = new MountainEvents.GoDown();
+            event.begin();
+            MountainSearch search = startSearch(food, raft, axe);
+            while(paths.size() < limit && search.next()){
+                paths.add(search.path());
             }
+            commitGoDown(event, "first", search.visited(), paths.size(), false);
         }
-
-        //if we passed every obstacles
-        //and it is the end of the mountain, we have found a legal path
-        if(stop.height ==0){
-            //add the restsop to the string res
-            res += stop.data.getLabel();
-            this.solution.add(res);
-            return true;
+        if(cache != null){
+            paths = Collections.unmodifiableList(paths);
+            cache.put(revision, key, paths);
         }
+        return paths;
+    }
 
-        //since we passed the reststop successfully we will add it to the possible path
-        res += stop.data.getLabel() + " ";
+    /**
+     * This function counts the legal paths, with the same rules as goDown,
+     * but without making the paths or adding them to the solution.
+     * @return the number of legal paths.
+     */
+    public long countPaths(){
+        return countPaths(0, 0, 0);
+    }
 
-        //check if the subtrees of the current nodes are worth going for:
-        //if any of the child is smaller than the parent by more than 1
-        //it will lead to cliff, so we will not take that path.
-        boolean right = false;
-        boolean left = false;
-        
-        if(stop.right != null && stop.left != null){
-            right = (stop.right.height == stop.height-1);
-            left = (stop.left.height == stop.height-1);
+    /**
+     * This function counts the legal paths of a hiker that starts 
+     * with the given supplies, instead of nothing.
+     * @param food is the number of foods the hiker starts with.
+     * @param raft is the number of rafts the hiker starts with.
+     * @param axe is the number of axes the hiker starts with.
+     * @return the number of legal paths.
+     * @throws IllegalArgumentException if any of the supplies is negative.
+     */
+    public long countPaths(int food, int raft, int axe) throws IllegalArgumentException{
+        ResultCache.Key key = null;
+        if(cache != null){
+            key = new ResultCache.Key(ResultCache.COUNT, food, raft, axe, 0);
+            Object cached = cache.get(revision, key);
+            if(cached != null){
+                return (Long) cached;
+            }
         }
 
-        else if(stop.right == null){
-            left = (stop.left.height == stop.height-1);
+        MountainEvents.GoDown event = new MountainEvents.GoDown();
+        event.begin();
+        MountainSearch search = startSearch(food, raft, axe);
+        long count = 0;
+        while(search.next()){
+            count ++;
         }
-
-        else if(stop.left == null){
-            right = (stop.right.height == stop.height-1);
+        commitGoDown(event, "count", search.visited(), count, false);
+        if(cache != null){
+            cache.put(revision, key, count);
         }
+        return count;
+    }
 
-        //since we will be going down, we will eat one food.
-        person.eat();
-        //record all the supplies the hiker has at this stop
-        int hiker_food = person.getFood();
-        int hiker_axe = person.getAxe();
-        int hiker_raft = person.getRaft();
-
-        //if the right child is a cliff, we will go left
-        if(!right && left){
-            return goDown(stop.left, res, person);
+    /**
+     * This function checks if there is any legal path, with the same rules as goDown.
+     * It stops at the first legal path it finds.
+     * @return true if there is a legal path.
+     */
+    public boolean hasPath(){
+        ResultCache.Key key = null;
+        if(cache != null){
+            key = new ResultCache.Key(ResultCache.EXISTS, 0, 0, 0, 0);
+            Object cached = cache.get(revision, key);
+            if(cached != null){
+                return (Boolean) cached;
+            }
         }
 
-        //if the left child is a class, we will go right
-        if(right && !left){
-            return goDown(stop.right, res, person);
+        MountainEvents.GoDown event = new MountainEvents.GoDown();
+        event.begin();
+        MountainSearch search = startSearch(0, 0, 0);
+        boolean found = search.next();
+        commitGoDown(event, "exists", search.visited(), found ? 1 : 0, false);
+        if(cache != null){
+            cache.put(revision, key, found);
         }
-        
-        //since both the children is not a cliff go both ways
-        //we will go both right and left
-        left = goDown(stop.left, res, person);
+        return found;
+    }
+
+    /**
+     * This function goes down the mountain once for many hikers,
+     * every hiker starts with its own supplies instead of nothing.
+     * It gives the same paths as going down with every hiker on its own,
+     * but the mountain is visited only once, and a branch is skipped
+     * when none of the hikers can go down it.
+     * The paths are not added to the solution.
+     * @param food is the number of foods of every hiker.
+     * @param raft is the number of rafts of every hiker.
+     * @param axe is the number of axes of every hiker.
+     * @return the legal paths of every hiker, in the order of the hikers,
+     * and the paths of a hiker are in the same order as goDown.
+     * @throws IllegalArgumentException if an array is null, the arrays have different lengths,
+     * or any of the supplies is negative.
+     */
+    public List<List<String>> goDown(int[] food, int[] raft, int[] axe) throws IllegalArgumentException{
+        return runBatch(food, raft, axe, true).paths();
+    }
 
-        //recover the supplies before going the other way
-        person.setSupplies(hiker_food,hiker_raft, hiker_axe);
-        right = goDown(stop.right, res, person);
+    /**
+     * This function counts the legal paths of many hikers at once,
+     * every hiker starts with its own supplies.
+     * The mountain is visited only once for all the hikers.
+     * @param food is the number of foods of every hiker.
+     * @param raft is the number of rafts of every hiker.
+     * @param axe is the number of axes of every hiker.
+     * @return the number of legal paths of every hiker, in the order of the hikers.
+     * @throws IllegalArgumentException if an array is null, the arrays have different lengths,
+     * or any of the supplies is negative.
+     */
+    public long[] countPaths(int[] food, int[] raft, int[] axe) throws IllegalArgumentException{
+        return runBatch(food, raft, axe, false).counts();
+    }
 
-        //if any of the path was successfull 
-        //return true
-        if(right && left){
-            return true;
+    /**
+     * It runs a batch search of the mountain.
+     * @param food is the number of foods of every hiker.
+     * @param raft is the number of rafts of every hiker.
+     * @param axe is the number of axes of every hiker.
+     * @param keepPaths is true to keep the paths, false to only count them.
+     * @return the finished search.
+     */
+    private BatchSearch runBatch(int[] food, int[] raft, int[] axe, boolean keepPaths){
+        MountainEvents.GoDown event = new MountainEvents.GoDown();
+        event.begin();
+        BatchSearch batch = new BatchSearch(food, raft, axe, root == null ? 0 : root.height, keepPaths);
+        batch.run(root);
+        if(event.shouldCommit()){
+            long found = 0;
+            for(long count : batch.counts()){
+                found += count;
+            }
+            commitGoDown(event, keepPaths ? "batch" : "batch count", batch.visited(), found, false);
         }
+        return batch;
+    }
 
-        if(right){
-            return true;
+    /**
+     * It records the event of going down the mountain, if the event is enabled.
+     * @param event is the event, it has been begun.
+     * @param mode is the kind of search.
+     * @param visited is the number of nodes visited.
+     * @param found is the number of legal paths found.
+     * @param cacheHit is true if the paths were given by the cache instead of a search.
+     */
+    private static void commitGoDown(MountainEvents.GoDown event, String mode, long visited, long found,
+        boolean cacheHit){
+        if(event.shouldCommit()){
+            event.mode = mode;
+            event.nodesVisited = visited;
+            event.solutions = found;
+            event.cacheHit = cacheHit;
+            event.commit();
         }
+    }
 
-        if(left){
-            return true;
+    /**
+     * It starts the search of this mountain from the root.
+     * The search is kept and reused by the next call.
+     * @param food is the number of foods the hiker starts with.
+     * @param raft is the number of rafts the hiker starts with.
+     * @param axe is the number of axes the hiker starts with.
+     * @return the search, ready to go down.
+     * @throws IllegalArgumentException if any of the supplies is negative.
+     */
+    private MountainSearch startSearch(int food, int raft, int axe) throws IllegalArgumentException{
+        if(search == null){
+            search = new MountainSearch();
         }
+        search.setStats(stats);
+        search.reset(this.root, food, raft, axe, null);
+        return search;
+    }
+
+    /**
+     * This function goes down the mountain lazily.
+     * The paths are found one at a time, when the iterator is asked for them,
+     * and they are not added to the solution.
+     * The mountain should not be changed while the iterator is used.
+     * @return an iterator over the legal paths, in the same order as goDown.
+     */
+    public Iterator<String> solutions(){
+        return new SolutionIterator(this.root);
+    }
 
-        return false;
+    /**
+     * This function returns the legal paths as a sequential stream.
+     * Like solutions(), the paths are found only when the stream needs them,
+     * so a short-circuiting operation stops the search early.
+     * @return a stream of the legal paths, in the same order as goDown.
+     */
+    public Stream<String> solutionStream(){
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(solutions(), 
+            Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * This function goes down the mountain like goDown,
+     * but it uses the common ForkJoinPool to go down 
+     * the left and the right subtrees at the same time.
+     * The paths are added to the solution in the same order as goDown.
+     */
+    public void goDownParallel(){
+        goDownParallel(ForkJoinPool.commonPool(), PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * This function goes down the mountain in parallel on the given pool.
+     * Subtrees that are lower than the threshold are searched
+     * on a single thread.
+     * @param pool is the pool that runs the search.
+     * @param threshold is the height below which the search is not split.
+     * @throws IllegalArgumentException if the pool is null or the threshold is negative.
+     */
+    public void goDownParallel(ForkJoinPool pool, int threshold) throws IllegalArgumentException{
+        checkForNull(pool);
+        if(threshold < 0){
+            throw new IllegalArgumentException("The threshold has to be positive integer.");
+        }
+        if (size == 0){
+            return;
+        }
+        this.solution.addAll(pool.invoke(new ParallelSearch(this.root, 0, 0, 0, null, threshold)));
     }
 
     /**
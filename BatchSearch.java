@@ -0,0 +1,239 @@
+package project5;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * BatchSearch goes down a BSTMountain once for many hikers at the same time.
+ * Every hiker starts with its own food, rafts and axes, and follows the same
+ * rules as goDown. The supplies of the hikers are kept as columns of ints,
+ * one set of columns for every level of the mountain, instead of one Hiker each.
+ *
+ * Hikers that start with the same supplies find the same paths, so they
+ * go down as one, and get the same result at the end.
+ * At every node, the hikers that pass are written to the columns of the level
+ * of the node, with the food they have after eating on the way down.
+ * Both children read the columns of their parent, so they are not copied.
+ * When no hiker is left, the rest of the subtree is not visited.
+ *
+ * @author Oyujin Ulziibaatar
+ */
+class BatchSearch {
+
+    private final int hikers;
+    //the group of every hiker, the hikers with the same supplies are one group
+    private final int[] groupOf;
+    private final int groups;
+    //the columns of every level: which group it is and its supplies,
+    //level 0 is the supplies the groups start with
+    private final int[][] ids;
+    private final int[][] foods;
+    private final int[][] rafts;
+    private final int[][] axes;
+
+    //the results of every group, then of every hiker when the search is done
+    private long[] counts;
+    private List<List<String>> paths;
+    private final BSTMountain.Node[] trail;
+    private final StringBuilder text = new StringBuilder();
+    private long visited = 0;
+
+    /**
+     * Constructor for a batch search.
+     * @param food is the number of foods every hiker starts with.
+     * @param raft is the number of rafts every hiker starts with.
+     * @param axe is the number of axes every hiker starts with.
+     * @param height is the height of the mountain.
+     * @param keepPaths is true to keep the paths, false to only count them.
+     * @throws IllegalArgumentException if an array is null, the arrays have different lengths,
+     * or any of the supplies is negative.
+     */
+    BatchSearch(int[] food, int[] raft, int[] axe, int height, boolean keepPaths)
+        throws IllegalArgumentException{
+        if(food == null || raft == null || axe == null){
+            throw new IllegalArgumentException();
+        }
+        if(food.length != raft.length || food.length != axe.length){
+            throw new IllegalArgumentException("Every hiker needs food, rafts and axes.");
+        }
+        hikers = food.length;
+        int levels = height + 2;
+        ids = new int[levels][];
+        foods = new int[levels][];
+        rafts = new int[levels][];
+        axes = new int[levels][];
+
+        //the first level is every group with its starting supplies
+        groupOf = new int[hikers];
+        Map<List<Integer>, Integer> seen = new HashMap<>();
+        ids[0] = new int[hikers];
+        foods[0] = new int[hikers];
+        rafts[0] = new int[hikers];
+        axes[0] = new int[hikers];
+        int count = 0;
+        for(int i = 0; i < hikers; i++){
+            if(food[i] < 0 || raft[i] < 0 || axe[i] < 0){
+                throw new IllegalArgumentException
+                ("The input for any of the supplies and any of the obstacles has to be positive integer.");
+            }
+            Integer group = seen.putIfAbsent(Arrays.asList(food[i], raft[i], axe[i]), count);
+            if(group == null){
+                ids[0][count] = count;
+                foods[0][count] = food[i];
+                rafts[0][count] = raft[i];
+                axes[0][count] = axe[i];
+                groupOf[i] = count;
+                count ++;
+            }
+            else{
+                groupOf[i] = group;
+            }
+        }
+        groups = count;
+
+        counts = new long[groups];
+        if(keepPaths){
+            paths = new ArrayList<>(groups);
+            for(int i = 0; i < groups; i++){
+                paths.add(new ArrayList<>());
+            }
+        }
+        trail = new BSTMountain.Node[levels];
+    }
+
+    /**
+     * It goes down the mountain from the given node with every hiker.
+     * It should be called only once.
+     * @param root is the root of the mountain, it can be null.
+     */
+    void run(BSTMountain.Node root){
+        if(root != null && groups > 0){
+            go(root, 0, groups);
+        }
+
+        //every hiker gets the result of its group, the first one of a group gets the list itself
+        long[] groupCounts = counts;
+        counts = new long[hikers];
+        List<List<String>> groupPaths = paths;
+        if(groupPaths != null){
+            paths = new ArrayList<>(hikers);
+        }
+        boolean[] given = new boolean[groups];
+        for(int i = 0; i < hikers; i++){
+            int group = groupOf[i];
+            counts[i] = groupCounts[group];
+            if(groupPaths != null){
+                paths.add(given[group] ? new ArrayList<>(groupPaths.get(group)) : groupPaths.get(group));
+            }
+            given[group] = true;
+        }
+    }
+
+    /**
+     * Getter for the number of legal paths of every hiker.
+     * @return the counts, in the order of the hikers.
+     */
+    long[] counts(){
+        return counts;
+    }
+
+    /**
+     * Getter for the legal paths of every hiker.
+     * @return the paths, in the order of the hikers, or null if they were not kept.
+     */
+    List<List<String>> paths(){
+        return paths;
+    }
+
+    /**
+     * Getter for the number of nodes visited.
+     * @return the number of nodes visited.
+     */
+    long visited(){
+        return visited;
+    }
+
+    /**
+     * The hikers of the level above arrive at the node.
+     * It does for every hiker what MountainSearch.check does for one,
+     * writes the ones that pass to the columns of the level of the node, and goes down with them.
+     * @param stop is the node the hikers are at.
+     * @param level is the level of the node, 0 is the root.
+     * @param count is the number of hikers that arrive.
+     */
+    private void go(BSTMountain.Node stop, int level, int count){
+        visited ++;
+        int next = level + 1;
+        if(ids[next] == null){
+            ids[next] = new int[groups];
+            foods[next] = new int[groups];
+            rafts[next] = new int[groups];
+            axes[next] = new int[groups];
+        }
+        int[] fromId = ids[level];
+        int[] fromFood = foods[level];
+        int[] fromRaft = rafts[level];
+        int[] fromAxe = axes[level];
+        int[] id = ids[next];
+        int[] food = foods[next];
+        int[] raft = rafts[next];
+        int[] axe = axes[next];
+        RestStop data = stop.data;
+        boolean end = stop.height == 0;
+        int needFood = stop.needFood;
+        int needRaft = stop.needRaft;
+        int needAxe = stop.needAxe;
+        int getFood = data.getFood();
+        int raftLeft = data.getRaft() - data.getRiver();
+        int axeLeft = data.getAxe() - data.getFallenTree();
+
+        int kept = 0;
+        for(int i = 0; i < count; i++){
+            //skip the hikers that do not have what the subtree needs
+            if(fromFood[i] < needFood || fromRaft[i] < needRaft || fromAxe[i] < needAxe){
+                continue;
+            }
+            //get the supplies of the reststop and pass the obstacles
+            int f = fromFood[i] + getFood;
+            int r = fromRaft[i] + raftLeft;
+            int a = fromAxe[i] + axeLeft;
+            if((f == 0 && !end) || r < 0 || a < 0){
+                continue;
+            }
+            id[kept] = fromId[i];
+            //since we will be going down, every hiker will eat one food,
+            //at the end of the mountain the food is not used any more
+            food[kept] = f - 1;
+            raft[kept] = r;
+            axe[kept] = a;
+            kept ++;
+        }
+        //the whole branch is skipped when no hiker is left
+        if(kept == 0){
+            return;
+        }
+        trail[level] = stop;
+
+        //it is the end of the mountain, every hiker left has a legal path
+        if(end){
+            String path = paths == null ? null : MountainSearch.render(trail, level + 1, text);
+            for(int i = 0; i < kept; i++){
+                counts[id[i]] ++;
+                if(path != null){
+                    paths.get(id[i]).add(path);
+                }
+            }
+            return;
+        }
+
+        //the left child is visited first, both children read the hikers of this level
+        if(MountainSearch.canGoLeft(stop)){
+            go(stop.left, next, kept);
+        }
+        if(MountainSearch.canGoRight(stop)){
+            go(stop.right, next, kept);
+        }
+    }
+}
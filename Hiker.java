@@ -1,27 +1,33 @@
 package project5;
+import java.util.Arrays;
 
 /**
  * This class represents a hiker going down the mountain.
  * Every hiker has supplies it can use.
  * Supplies include food, raft, and axe.
- * A hiker stores the supplies in an array.
+ * A hiker stores the supplies as primitive counters,
+ * and keeps an undo log so that a search can go back
+ * to an earlier state without creating new objects.
  * @author Oyujin Ulziibaatar
  */
 public class Hiker {
 
-  private String[] h_supplies = new String[6];
+  private int food;
+  private int raft;
+  private int axe;
+
+  //undo log, every checkpoint takes 3 slots: food, raft, axe
+  private int[] undo = new int[3 * 16];
+  private int undoTop = 0;
   
   /**
    * Constructor for a hiker object.
    * At the start, every supplies are 0.
    */
   public Hiker(){
-    h_supplies[0] = "food";
-    h_supplies[1] = "0";
-    h_supplies[2] = "raft";
-    h_supplies[3] = "0";
-    h_supplies[4] = "axe";
-    h_supplies[5] = "0";
+    this.food = 0;
+    this.raft = 0;
+    this.axe = 0;
   }
 
   /**
@@ -29,7 +35,7 @@ public class Hiker {
    * @return the number of food as an integer.
    */
   public int getFood(){
-      return Integer.valueOf(h_supplies[1]);
+      return food;
   }
 
   /**
@@ -38,7 +44,7 @@ public class Hiker {
    */
   public void updateFood(int f){
       checkInput(f);
-      h_supplies[1]= String.valueOf(getFood()+f);
+      food += f;
   }
 
   /**
@@ -46,7 +52,7 @@ public class Hiker {
    * @return the number of rafts a hiker has.
    */
   public int getRaft(){
-      return Integer.valueOf(h_supplies[3]);
+      return raft;
   }
 
   /**
@@ -55,7 +61,7 @@ public class Hiker {
    */
   public void updateRaft(int r){
       checkInput(r);
-      h_supplies[3]= String.valueOf(getRaft()+r);
+      raft += r;
   }
 
   /**
@@ -63,7 +69,7 @@ public class Hiker {
    * @return the number of axes a hiker has.
    */
   public int getAxe(){
-      return Integer.valueOf(h_supplies[5]);
+      return axe;
   }
 
   /**
@@ -72,14 +78,14 @@ public class Hiker {
    */
   public void updateAxe(int a){
       checkInput(a);
-      h_supplies[5]= String.valueOf(getAxe()+a);
+      axe += a;
   }
 
   /**
    * This function will decrement 1 food from the supply.
    */
   public void eat(){
-      h_supplies[1]= String.valueOf(getFood()-1);
+      food --;
   }
 
   /**
@@ -92,9 +98,9 @@ public class Hiker {
       checkInput(f);
       checkInput(r);
       checkInput(a);
-      h_supplies[1]= String.valueOf(f);
-      h_supplies[3]= String.valueOf(r);
-      h_supplies[5]= String.valueOf(a);
+      food = f;
+      raft = r;
+      axe = a;
   }
 
   /**
@@ -103,7 +109,7 @@ public class Hiker {
    */
   public void setAxe(int a){
       checkInput(a);
-    h_supplies[5]= String.valueOf(a);
+    axe = a;
   }
 
   /**
@@ -112,7 +118,7 @@ public class Hiker {
    */
   public void setRaft(int r){
       checkInput(r);
-      h_supplies[3]= String.valueOf(r);
+      raft = r;
   }
 
   /**
@@ -126,6 +132,41 @@ public class Hiker {
       updateRaft(rstop.getRaft());
   }
 
+  /**
+   * It saves the current supplies on the undo log.
+   * The returned checkpoint can be given to rollback
+   * to get back to these supplies later.
+   * @return the checkpoint of the current supplies.
+   */
+  public int checkpoint(){
+      //grow the log if it is full
+      if(undoTop + 3 > undo.length){
+          undo = Arrays.copyOf(undo, undo.length * 2);
+      }
+      int cp = undoTop;
+      undo[undoTop++] = food;
+      undo[undoTop++] = raft;
+      undo[undoTop++] = axe;
+      return cp;
+  }
+
+  /**
+   * It sets the supplies back to what they were at the given checkpoint.
+   * The checkpoint and every checkpoint taken after it 
+   * are removed from the undo log.
+   * @param cp is the checkpoint returned by checkpoint().
+   * @throws IllegalArgumentException if the checkpoint is not in the log.
+   */
+  public void rollback(int cp) throws IllegalArgumentException{
+      if(cp < 0 || cp + 3 > undoTop || cp % 3 != 0){
+          throw new IllegalArgumentException("The checkpoint is not in the undo log.");
+      }
+      food = undo[cp];
+      raft = undo[cp + 1];
+      axe = undo[cp + 2];
+      undoTop = cp;
+  }
+
   /**
    * It will check if the hiker can pass a river obstacle 
    * given the supplies the hiker has.
@@ -134,11 +175,11 @@ public class Hiker {
    * @return boolean value to indicate if the hiker passed or not.
    */
   public boolean passRiver(int river){
-      if(getRaft()<river){
+      if(raft<river){
           return false;
       }
 
-      setRaft(getRaft()-river);
+      raft -= river;
       return true;
   }
 
@@ -162,10 +203,10 @@ public class Hiker {
    * @return a boolean value to indicate if the hiker passed or not.
    */
   public boolean passFallenTree(int ft){
-      if(getAxe() < ft){
+      if(axe < ft){
           return false;
       }
-      setAxe(getAxe()-ft);
+      axe -= ft;
       return true;
   }
 
@@ -0,0 +1,134 @@
+package project5;
+import java.util.List;
+
+/**
+ * IncrementalSolver finds the legal paths of a mountain and remembers them.
+ * The paths of every node are kept in the node, together with the supplies
+ * the hiker had when it got there. There is only one way to get to a node
+ * from the root, so a node that is reached with the same supplies and whose
+ * subtree has not changed has the same paths as before, and it is not searched again.
+ * BSTMountain forgets the paths of a node when its subtree changes.
+ * 
+ * The paths are not kept as text: every node keeps the paths of its children,
+ * and the text is made from them only when it is needed.
+ * 
+ * @author Oyujin Ulziibaatar
+ */
+class IncrementalSolver {
+
+    /**
+     * This class is the result of going down from one node
+     * with the given supplies.
+     */
+    static final class Solved {
+
+        final int food;
+        final int raft;
+        final int axe;
+        final Solved left;
+        final Solved right;
+        //the number of legal paths from the node
+        final long count;
+
+        /**
+         * Constructor for a result.
+         * @param food is the number of foods the hiker had when it got to the node.
+         * @param raft is the number of rafts the hiker had when it got to the node.
+         * @param axe is the number of axes the hiker had when it got to the node.
+         * @param left is the result of the left child, null if it was not taken.
+         * @param right is the result of the right child, null if it was not taken.
+         * @param count is the number of legal paths from the node.
+         */
+        Solved(int food, int raft, int axe, Solved left, Solved right, long count){
+            this.food = food;
+            this.raft = raft;
+            this.axe = axe;
+            this.left = left;
+            this.right = right;
+            this.count = count;
+        }
+    }
+
+    /**
+     * The solver only has static functions.
+     */
+    private IncrementalSolver(){
+    }
+
+    /**
+     * It goes down from the given node with the given supplies, 
+     * with the same rules as goDown, and reuses the remembered results.
+     * @param stop is the node the hiker is at.
+     * @param food is the number of foods the hiker has when it gets to the node.
+     * @param raft is the number of rafts the hiker has when it gets to the node.
+     * @param axe is the number of axes the hiker has when it gets to the node.
+     * @return the result of the node.
+     */
+    static Solved solve(BSTMountain.Node stop, int food, int raft, int axe){
+        Solved memo = stop.memo;
+        if(memo != null && memo.food == food && memo.raft == raft && memo.axe == axe){
+            return memo;
+        }
+
+        Hiker hiker = new Hiker();
+        hiker.setSupplies(food, raft, axe);
+        Solved solved;
+        if(!MountainSearch.pass(hiker, stop)){
+            solved = new Solved(food, raft, axe, null, null, 0);
+        }
+        else if(stop.height == 0){
+            solved = new Solved(food, raft, axe, null, null, 1);
+        }
+        else{
+            hiker.eat();
+            Solved left = null;
+            Solved right = null;
+            if(MountainSearch.canGoLeft(stop)){
+                left = solve(stop.left, hiker.getFood(), hiker.getRaft(), hiker.getAxe());
+            }
+            if(MountainSearch.canGoRight(stop)){
+                right = solve(stop.right, hiker.getFood(), hiker.getRaft(), hiker.getAxe());
+            }
+            long count = (left == null ? 0 : left.count) + (right == null ? 0 : right.count);
+            solved = new Solved(food, raft, axe, left, right, count);
+        }
+        stop.memo = solved;
+        return solved;
+    }
+
+    /**
+     * It makes the text of every path of the result, left before right.
+     * @param stop is the node of the result.
+     * @param solved is the result.
+     * @param paths is the list the paths are added to.
+     */
+    static void render(BSTMountain.Node stop, Solved solved, List<String> paths){
+        //a path has at most one node of every level
+        render(stop, solved, new BSTMountain.Node[stop.height + 1], 0, new StringBuilder(), paths);
+    }
+
+    /**
+     * It is the recursive render function.
+     * @param stop is the node of the result.
+     * @param solved is the result.
+     * @param trail is the nodes of the path before this node.
+     * @param length is the number of nodes in the trail.
+     * @param text is the buffer used to make the text.
+     * @param paths is the list the paths are added to.
+     */
+    private static void render(BSTMountain.Node stop, Solved solved, BSTMountain.Node[] trail, int length,
+        StringBuilder text, List<String> paths){
+        //there is no legal path from here
+        if(solved == null || solved.count == 0){
+            return;
+        }
+        trail[length] = stop;
+        if(stop.height == 0){
+            paths.add(MountainSearch.render(trail, length + 1, text));
+        }
+        else{
+            render(stop.left, solved.left, trail, length + 1, text, paths);
+            render(stop.right, solved.right, trail, length + 1, text, paths);
+        }
+    }
+}
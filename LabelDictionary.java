@@ -0,0 +1,444 @@
+package project5;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.TreeSet;
+
+/**
+ * LabelDictionary keeps the labels of many reststops in one place.
+ * Every label is stored once, as UTF-8 bytes in one big array,
+ * and it gets a number (an id): the first label is 0, the next one is 1, and so on.
+ * A reststop made with a dictionary keeps only the id of its label.
+ *
+ * If all the labels are known before the reststops are made, the dictionary
+ * is made with ofLabels, the ids are given in the order of the labels,
+ * and two labels are compared by comparing their ids.
+ * Otherwise, the ids are given in the order the labels are added, and two
+ * labels are compared by a sort key made from their first characters,
+ * and only if the keys are the same, by their bytes.
+ * Either way, the order is the same as String.compareTo.
+ *
+ * A dictionary is not thread safe.
+ *
+ * @author Oyujin Ulziibaatar
+ */
+public class LabelDictionary {
+
+    private final boolean ordered;
+
+    //the bytes of the labels, the label id is at bytes[offsets[id]] to bytes[offsets[id+1]]
+    private byte[] bytes = new byte[1024];
+    private int[] offsets = new int[65];
+    //the first 4 UTF-16 characters of every label, for fast comparison
+    private long[] sortKeys = new long[64];
+    private int[] hashes = new int[64];
+    private int count = 0;
+
+    //hash table of the ids + 1, 0 is an empty slot
+    private int[] table = new int[128];
+
+    /**
+     * Constructor for an empty dictionary.
+     * The labels can be added in any order.
+     */
+    public LabelDictionary(){
+        this(false);
+    }
+
+    /**
+     * Constructor for an empty dictionary.
+     * @param ordered is true if the labels will be added in order.
+     */
+    private LabelDictionary(boolean ordered){
+        this.ordered = ordered;
+    }
+
+    /**
+     * It makes a dictionary of the given labels, where the ids
+     * are given in the order of the labels, so the labels are compared
+     * by their ids. No other label can be added to it.
+     * @param labels is every label that will be used.
+     * @return the dictionary.
+     * @throws IllegalArgumentException if the collection or any label is null.
+     */
+    public static LabelDictionary ofLabels(Collection<String> labels) throws IllegalArgumentException{
+        if(labels == null || labels.contains(null)){
+            throw new IllegalArgumentException();
+        }
+        LabelDictionary dictionary = new LabelDictionary(false);
+        //the labels are sorted and the duplicates are dropped
+        for(String label : new TreeSet<>(labels)){
+            dictionary.intern(label);
+        }
+        return dictionary.freeze();
+    }
+
+    /**
+     * It makes an ordered copy of this dictionary that does not accept new labels.
+     * @return the copy.
+     */
+    private LabelDictionary freeze(){
+        LabelDictionary frozen = new LabelDictionary(true);
+        frozen.bytes = bytes;
+        frozen.offsets = offsets;
+        frozen.sortKeys = sortKeys;
+        frozen.hashes = hashes;
+        frozen.count = count;
+        frozen.table = table;
+        return frozen;
+    }
+
+    /**
+     * This method returns the number of labels in the dictionary.
+     * @return the number of labels.
+     */
+    public int size(){
+        return count;
+    }
+
+    /**
+     * It checks if the ids of this dictionary are in the order of the labels.
+     * @return true if the dictionary was made with ofLabels.
+     */
+    public boolean isOrdered(){
+        return ordered;
+    }
+
+    /**
+     * It returns the id of the label, adding the label if it is new.
+     * @param label is the label.
+     * @return the id of the label.
+     * @throws IllegalArgumentException if the label is null,
+     * or if it is new and the dictionary was made with ofLabels.
+     */
+    public int intern(String label) throws IllegalArgumentException{
+        if(label == null){
+            throw new IllegalArgumentException();
+        }
+        byte[] utf8 = label.getBytes(StandardCharsets.UTF_8);
+        return intern(ByteBuffer.wrap(utf8), 0, utf8.length, true);
+    }
+
+    /**
+     * It returns the id of the label that is in the buffer, adding the label if it is new.
+     * A String is made only if the label has other than ASCII characters.
+     * @param buffer is the bytes of the label, in UTF-8.
+     * @param start is the position of the first byte of the label.
+     * @param end is the position after the last byte of the label.
+     * @return the id of the label.
+     * @throws IllegalArgumentException if the label is new and the dictionary was made with ofLabels.
+     */
+    int intern(ByteBuffer buffer, int start, int end) throws IllegalArgumentException{
+        return intern(buffer, start, end, false);
+    }
+
+    /**
+     * It returns the id of the label that is in the buffer, adding the label if it is new.
+     * @param buffer is the bytes of the label, in UTF-8.
+     * @param start is the position of the first byte of the label.
+     * @param end is the position after the last byte of the label.
+     * @param valid is true if the bytes are known to be valid UTF-8.
+     * @return the id of the label.
+     * @throws IllegalArgumentException if the label is new and the dictionary was made with ofLabels.
+     */
+    private int intern(ByteBuffer buffer, int start, int end, boolean valid) throws IllegalArgumentException{
+        int hash = 0;
+        for(int i = start; i < end; i++){
+            byte b = buffer.get(i);
+            //bytes of other than ASCII characters are read the same way as String does,
+            //so that bad UTF-8 becomes the same label either way
+            if(b < 0 && !valid){
+                byte[] raw = new byte[end - start];
+                for(int j = 0; j < raw.length; j++){
+                    raw[j] = buffer.get(start + j);
+                }
+                return intern(new String(raw, StandardCharsets.UTF_8));
+            }
+            hash = 31 * hash + b;
+        }
+
+        //look for the label in the table
+        int mask = table.length - 1;
+        int slot = mix(hash) & mask;
+        while(table[slot] != 0){
+            int id = table[slot] - 1;
+            if(hashes[id] == hash && sameBytes(id, buffer, start, end)){
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if(ordered){
+            throw new IllegalArgumentException("The label is not in the dictionary.");
+        }
+        return add(buffer, start, end, hash);
+    }
+
+    /**
+     * It adds a new label at the end of the dictionary.
+     * @param buffer is the bytes of the label.
+     * @param start is the position of the first byte of the label.
+     * @param end is the position after the last byte of the label.
+     * @param hash is the hash of the bytes.
+     * @return the id of the new label.
+     */
+    private int add(ByteBuffer buffer, int start, int end, int hash){
+        int length = end - start;
+        int id = count;
+        if(id == sortKeys.length){
+            int capacity = id * 2;
+            offsets = Arrays.copyOf(offsets, capacity + 1);
+            sortKeys = Arrays.copyOf(sortKeys, capacity);
+            hashes = Arrays.copyOf(hashes, capacity);
+        }
+        int offset = offsets[id];
+        if(offset + length > bytes.length){
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, offset + length));
+        }
+        for(int i = 0; i < length; i++){
+            bytes[offset + i] = buffer.get(start + i);
+        }
+        offsets[id + 1] = offset + length;
+        hashes[id] = hash;
+        count ++;
+        sortKeys[id] = sortKey(id);
+
+        //keep the table at most half full
+        if(count * 2 > table.length){
+            rehash();
+        }
+        else{
+            insert(id);
+        }
+        return id;
+    }
+
+    /**
+     * It makes the table twice as big and puts every id back in it.
+     */
+    private void rehash(){
+        table = new int[table.length * 2];
+        for(int id = 0; id < count; id++){
+            insert(id);
+        }
+    }
+
+    /**
+     * It puts the id in the first empty slot for its hash.
+     * @param id is the id of the label.
+     */
+    private void insert(int id){
+        int mask = table.length - 1;
+        int slot = mix(hashes[id]) & mask;
+        while(table[slot] != 0){
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = id + 1;
+    }
+
+    /**
+     * It spreads the bits of the hash, so close hashes go to different slots.
+     * @param hash is the hash.
+     * @return the mixed hash.
+     */
+    private static int mix(int hash){
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * It checks if the label of the id has the given bytes.
+     * @param id is the id of the label.
+     * @param buffer is the bytes.
+     * @param start is the position of the first byte.
+     * @param end is the position after the last byte.
+     * @return true if they are the same.
+     */
+    private boolean sameBytes(int id, ByteBuffer buffer, int start, int end){
+        int offset = offsets[id];
+        if(offsets[id + 1] - offset != end - start){
+            return false;
+        }
+        for(int i = start; i < end; i++){
+            if(bytes[offset++] != buffer.get(i)){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * It returns the label of the id as a String.
+     * @param id is the id of the label.
+     * @return the label.
+     * @throws IllegalArgumentException if there is no such id.
+     */
+    public String label(int id) throws IllegalArgumentException{
+        checkId(id);
+        return new String(bytes, offsets[id], offsets[id + 1] - offsets[id], StandardCharsets.UTF_8);
+    }
+
+    /**
+     * It adds the label of the id to the builder.
+     * ASCII labels are copied without making a String.
+     * @param id is the id of the label.
+     * @param builder is the builder the label is added to.
+     */
+    void appendLabel(int id, StringBuilder builder){
+        int start = offsets[id];
+        int end = offsets[id + 1];
+        for(int i = start; i < end; i++){
+            if(bytes[i] < 0){
+                builder.append(label(id));
+                return;
+            }
+        }
+        for(int i = start; i < end; i++){
+            builder.append((char) bytes[i]);
+        }
+    }
+
+    /**
+     * It compares the labels of two ids, in the same order as String.compareTo.
+     * @param a is the id of the first label.
+     * @param b is the id of the second label.
+     * @return a negative integer, zero, or a positive integer as the first label
+     * is less than, equal to, or greater than the second label.
+     */
+    int compare(int a, int b){
+        if(ordered || a == b){
+            return Integer.compare(a, b);
+        }
+        int diff = Long.compareUnsigned(sortKeys[a], sortKeys[b]);
+        if(diff != 0){
+            return diff;
+        }
+        return compareChars(a, b);
+    }
+
+    /**
+     * It makes the sort key of a label: its first 4 UTF-16 characters,
+     * 16 bits each, the first character in the highest bits.
+     * A shorter label is padded with 0.
+     * @param id is the id of the label.
+     * @return the sort key.
+     */
+    private long sortKey(int id){
+        long key = 0;
+        int p = offsets[id];
+        int end = offsets[id + 1];
+        int low = -1;
+        for(int i = 0; i < 4; i++){
+            int c = 0;
+            //the second half of a character outside of the BMP
+            if(low >= 0){
+                c = low;
+                low = -1;
+            }
+            else if(p < end){
+                int cp = codePoint(p, end);
+                p = next(p, end);
+                c = cp >= 0x10000 ? Character.highSurrogate(cp) : cp;
+                low = cp >= 0x10000 ? Character.lowSurrogate(cp) : -1;
+            }
+            key = (key << 16) | c;
+        }
+        return key;
+    }
+
+    /**
+     * It compares two labels character by character, the same as String.compareTo.
+     * The UTF-8 bytes are turned into UTF-16 characters on the way,
+     * without making a String.
+     * @param a is the id of the first label.
+     * @param b is the id of the second label.
+     * @return the difference of the first different characters,
+     * or the difference of the lengths.
+     */
+    private int compareChars(int a, int b){
+        int pa = offsets[a];
+        int pb = offsets[b];
+        int endA = offsets[a + 1];
+        int endB = offsets[b + 1];
+        int lowA = -1;
+        int lowB = -1;
+        while(true){
+            boolean hasA = lowA >= 0 || pa < endA;
+            boolean hasB = lowB >= 0 || pb < endB;
+            if(!hasA || !hasB){
+                return (hasA ? 1 : 0) - (hasB ? 1 : 0);
+            }
+
+            int ca;
+            if(lowA >= 0){
+                ca = lowA;
+                lowA = -1;
+            }
+            else{
+                int cp = codePoint(pa, endA);
+                pa = next(pa, endA);
+                ca = cp >= 0x10000 ? Character.highSurrogate(cp) : cp;
+                lowA = cp >= 0x10000 ? Character.lowSurrogate(cp) : -1;
+            }
+
+            int cb;
+            if(lowB >= 0){
+                cb = lowB;
+                lowB = -1;
+            }
+            else{
+                int cp = codePoint(pb, endB);
+                pb = next(pb, endB);
+                cb = cp >= 0x10000 ? Character.highSurrogate(cp) : cp;
+                lowB = cp >= 0x10000 ? Character.lowSurrogate(cp) : -1;
+            }
+
+            if(ca != cb){
+                return ca - cb;
+            }
+        }
+    }
+
+    /**
+     * It reads the code point that starts at the given byte.
+     * @param p is the position of the first byte of the code point.
+     * @param end is the position after the last byte of the label.
+     * @return the code point.
+     */
+    private int codePoint(int p, int end){
+        int b = bytes[p] & 0xFF;
+        if(b < 0x80){
+            return b;
+        }
+        int length = next(p, end) - p;
+        int cp = b & (0x7F >> length);
+        for(int i = 1; i < length; i++){
+            cp = (cp << 6) | (bytes[p + i] & 0x3F);
+        }
+        return cp;
+    }
+
+    /**
+     * It finds the position of the code point after the one at the given byte.
+     * @param p is the position of the first byte of the code point.
+     * @param end is the position after the last byte of the label.
+     * @return the position of the next code point.
+     */
+    private int next(int p, int end){
+        int b = bytes[p] & 0xFF;
+        int length = b < 0x80 ? 1 : b < 0xE0 ? 2 : b < 0xF0 ? 3 : 4;
+        return Math.min(end, p + length);
+    }
+
+    /**
+     * It checks if the id is in the dictionary.
+     * @param id is the id to be checked.
+     * @throws IllegalArgumentException if there is no such id.
+     */
+    private void checkId(int id) throws IllegalArgumentException{
+        if(id < 0 || id >= count){
+            throw new IllegalArgumentException("There is no label with the id " + id + ".");
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package project5;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * MountainEvents holds the Java Flight Recorder events of the mountain.
+ * They are recorded only while a recording with the events enabled is running,
+ * for example with -XX:StartFlightRecording, and they can be looked at
+ * in JDK Mission Control under the Mountain category.
+ * When no recording is running, an event costs almost nothing.
+ *
+ * @author Oyujin Ulziibaatar
+ */
+final class MountainEvents {
+
+    /**
+     * Only one out of this many rotations is recorded.
+     */
+    static final int ROTATION_SAMPLE = 64;
+
+    /**
+     * This class only holds the events, so it is never constructed.
+     */
+    private MountainEvents(){
+    }
+
+    /**
+     * The event of reading an input file.
+     * The time includes the consumer of the reststops,
+     * which is usually adding them to the mountain.
+     */
+    @Name("project5.Parse")
+    @Label("Mountain Parse")
+    @Category("Mountain")
+    @Description("Reading the reststops of an input file")
+    static final class Parse extends Event {
+        @Label("File")
+        String file;
+
+        @Label("Size")
+        @DataAmount
+        long bytes;
+
+        @Label("Reststops")
+        int reststops;
+
+        @Label("Parallel")
+        boolean parallel;
+    }
+
+    /**
+     * The event of building a mountain from many reststops at once.
+     */
+    @Name("project5.Build")
+    @Label("Mountain Build")
+    @Category("Mountain")
+    @Description("Building the tree from a batch of reststops")
+    static final class Build extends Event {
+        @Label("Operation")
+        String operation;
+
+        @Label("Reststops Given")
+        int given;
+
+        @Label("Reststops Added")
+        int added;
+    }
+
+    /**
+     * The event of a rotation, only one out of ROTATION_SAMPLE is recorded.
+     */
+    @Name("project5.Rotation")
+    @Label("Mountain Rotation")
+    @Category("Mountain")
+    @Description("A sampled rebalancing rotation")
+    @StackTrace(false)
+    static final class Rotation extends Event {
+        @Label("Type")
+        String type;
+
+        @Label("Height")
+        int height;
+
+        @Label("Sample Rate")
+        int sampleRate;
+    }
+
+    /**
+     * The event of going down the mountain.
+     */
+    @Name("project5.GoDown")
+    @Label("Mountain Go Down")
+    @Category("Mountain")
+    @Description("A search of the legal paths")
+    static final class GoDown extends Event {
+        @Label("Mode")
+        String mode;
+
+        @Label("Nodes Visited")
+        long nodesVisited;
+
+        @Label("Solutions")
+        long solutions;
+
+        @Label("Cache Hit")
+        @Description("The paths were given by the cache, no node was visited")
+        boolean cacheHit;
+    }
+}
@@ -0,0 +1,396 @@
+package project5;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * MountainFile saves a built mountain in a binary file and loads it back
+ * without adding the reststops again, so there are no comparisons and no rotations.
+ *
+ * The file has three parts:
+ * the header: the magic number, the version of the format, the number of nodes,
+ * and the number of bytes of the nodes and of the labels.
+ * the nodes, in preorder: the height, which children the node has,
+ * the food, raft, axe, fallen tree and river of the reststop, and the length of the label.
+ * The height and the children take a byte each, the other numbers take
+ * 7 bits per byte, so a small number takes only one byte.
+ * the label table: the UTF-8 bytes of the labels, in the same order as the nodes.
+ * The numbers of the header are big endian.
+ *
+ * @author Oyujin Ulziibaatar
+ */
+class MountainFile {
+
+    static final int MAGIC = 0x4253544d;
+    static final int FORMAT = 1;
+    static final int HEADER = 28;
+    //the most bytes a node can take
+    static final int RECORD = 2 + 6 * 5;
+
+    private static final byte HAS_LEFT = 1;
+    private static final byte HAS_RIGHT = 2;
+    private static final int BUFFER = 1 << 16;
+    //no AVL tree that fits in a file is this high
+    private static final int MAX_HEIGHT = 64;
+
+    private final FileChannel channel;
+    private ByteBuffer nodes;
+    private ByteBuffer labels;
+    //where the next node and the next label go in the file
+    private long nodePosition;
+    private long labelPosition;
+    //the number of nodes read so far
+    private int nodesRead = 0;
+
+    /**
+     * Constructor for saving to the given channel.
+     * @param channel is the channel of the file.
+     */
+    private MountainFile(FileChannel channel){
+        this.channel = channel;
+    }
+
+    /**
+     * It saves the mountain to the file, the file is replaced if it exists.
+     * @param root is the root of the mountain, it can be null.
+     * @param size is the number of nodes in the mountain.
+     * @param file is the file to save to.
+     * @throws IOException if the file cannot be written.
+     */
+    static void save(BSTMountain.Node root, int size, File file) throws IOException{
+        try(RandomAccessFile raf = new RandomAccessFile(file, "rw");
+            FileChannel channel = raf.getChannel()){
+            channel.truncate(0);
+            MountainFile out = new MountainFile(channel);
+            //the nodes and the labels are written at the same time, to their own parts,
+            //so the size of the nodes is worked out first
+            long nodeBytes = root == null ? 0 : nodeBytes(root);
+            out.nodes = ByteBuffer.allocateDirect(BUFFER);
+            out.labels = ByteBuffer.allocateDirect(BUFFER);
+            out.nodePosition = HEADER;
+            out.labelPosition = HEADER + nodeBytes;
+            if(root != null){
+                out.write(root);
+            }
+            out.flush(out.nodes, true);
+            out.flush(out.labels, false);
+
+            //the header is written last, when the size of the labels is known
+            ByteBuffer header = ByteBuffer.allocate(HEADER);
+            header.putInt(MAGIC).putInt(FORMAT).putInt(size).putLong(nodeBytes)
+                .putLong(out.labelPosition - HEADER - nodeBytes);
+            header.flip();
+            writeFully(channel, header, 0);
+        }
+    }
+
+    /**
+     * It writes the node and its subtree in preorder.
+     * @param node is the node to be written.
+     * @throws IOException if the file cannot be written.
+     */
+    private void write(BSTMountain.Node node) throws IOException{
+        RestStop stop = node.data;
+        byte[] label = stop.getLabel().getBytes(StandardCharsets.UTF_8);
+        if(nodes.remaining() < RECORD){
+            flush(nodes, true);
+        }
+        nodes.put((byte) node.height);
+        nodes.put((byte) ((node.left != null ? HAS_LEFT : 0) | (node.right != null ? HAS_RIGHT : 0)));
+        putNumber(nodes, stop.getFood());
+        putNumber(nodes, stop.getRaft());
+        putNumber(nodes, stop.getAxe());
+        putNumber(nodes, stop.getFallenTree());
+        putNumber(nodes, stop.getRiver());
+        putNumber(nodes, label.length);
+
+        //a label longer than the buffer is written straight to the file
+        if(labels.remaining() < label.length){
+            flush(labels, false);
+            if(label.length > labels.capacity()){
+                writeFully(channel, ByteBuffer.wrap(label), labelPosition);
+                labelPosition += label.length;
+                label = new byte[0];
+            }
+        }
+        labels.put(label);
+
+        if(node.left != null){
+            write(node.left);
+        }
+        if(node.right != null){
+            write(node.right);
+        }
+    }
+
+    /**
+     * It works out the number of bytes the nodes of a subtree take.
+     * @param node is the root of the subtree.
+     * @return the number of bytes.
+     */
+    private static long nodeBytes(BSTMountain.Node node){
+        RestStop stop = node.data;
+        long bytes = 2 + numberBytes(stop.getFood()) + numberBytes(stop.getRaft())
+            + numberBytes(stop.getAxe()) + numberBytes(stop.getFallenTree())
+            + numberBytes(stop.getRiver()) + numberBytes(utf8Length(stop.getLabel()));
+        if(node.left != null){
+            bytes += nodeBytes(node.left);
+        }
+        if(node.right != null){
+            bytes += nodeBytes(node.right);
+        }
+        return bytes;
+    }
+
+    /**
+     * It works out the number of bytes of a label in UTF-8, without encoding it.
+     * @param label is the label.
+     * @return the number of bytes.
+     */
+    private static int utf8Length(String label){
+        int length = 0;
+        for(int i = 0; i < label.length(); i++){
+            char c = label.charAt(i);
+            if(c < 0x80){
+                length += 1;
+            }
+            else if(c < 0x800){
+                length += 2;
+            }
+            else if(Character.isHighSurrogate(c) && i + 1 < label.length() 
+                && Character.isLowSurrogate(label.charAt(i + 1))){
+                length += 4;
+                i ++;
+            }
+            else{
+                //a lone surrogate is encoded as '?'
+                length += Character.isSurrogate(c) ? 1 : 3;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * It works out the number of bytes a positive number takes, 7 bits per byte.
+     * @param n is the number.
+     * @return the number of bytes, from 1 to 5.
+     */
+    private static int numberBytes(int n){
+        int bytes = 1;
+        while((n >>>= 7) != 0){
+            bytes ++;
+        }
+        return bytes;
+    }
+
+    /**
+     * It writes a positive number, 7 bits per byte, the lowest bits first.
+     * The highest bit of a byte is set if more bytes follow.
+     * @param buffer is the buffer to write to.
+     * @param n is the number.
+     */
+    private static void putNumber(ByteBuffer buffer, int n){
+        while((n & ~0x7f) != 0){
+            buffer.put((byte) ((n & 0x7f) | 0x80));
+            n >>>= 7;
+        }
+        buffer.put((byte) n);
+    }
+
+    /**
+     * It reads a positive number written by putNumber.
+     * @param buffer is the buffer to read from.
+     * @return the number.
+     * @throws IOException if the number is too big.
+     */
+    private static int getNumber(ByteBuffer buffer) throws IOException{
+        int n = 0;
+        for(int shift = 0; shift < 32; shift += 7){
+            byte b = buffer.get();
+            n |= (b & 0x7f) << shift;
+            if(b >= 0){
+                //the last byte can only have the 3 bits left of a positive int
+                if(shift == 28 && b > 7){
+                    break;
+                }
+                return n;
+            }
+        }
+        throw new IOException("The saved mountain is damaged.");
+    }
+
+    /**
+     * It writes the buffer to its part of the file and empties it.
+     * @param buffer is the buffer to be written.
+     * @param isNodes is true for the nodes, false for the labels.
+     * @throws IOException if the file cannot be written.
+     */
+    private void flush(ByteBuffer buffer, boolean isNodes) throws IOException{
+        buffer.flip();
+        int length = buffer.remaining();
+        if(isNodes){
+            writeFully(channel, buffer, nodePosition);
+            nodePosition += length;
+        }
+        else{
+            writeFully(channel, buffer, labelPosition);
+            labelPosition += length;
+        }
+        buffer.clear();
+    }
+
+    /**
+     * It writes the whole buffer to the channel at the given position.
+     * @param channel is the channel of the file.
+     * @param buffer is the bytes to be written.
+     * @param position is the position in the file.
+     * @throws IOException if the file cannot be written.
+     */
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException{
+        while(buffer.hasRemaining()){
+            position += channel.write(buffer, position);
+        }
+    }
+
+    /**
+     * It loads a mountain from the file into the given empty mountain.
+     * The file is mapped to memory, and the nodes are made in preorder,
+     * the heights and everything else the nodes know about their subtrees
+     * are worked out again by updateHeight, from the bottom up.
+     * The tree is checked while it is read, so a damaged or edited file
+     * cannot make a mountain that the searches would go down wrongly.
+     * @param file is the file to load.
+     * @param dictionary is the dictionary of the labels, null to keep the labels as Strings.
+     * @param mountain is the empty mountain the nodes are loaded into.
+     * @throws IOException if the file cannot be read or it is not a saved mountain.
+     * @throws IllegalArgumentException if the number of nodes is not the one in the header,
+     * the labels are not in order, or a saved height is wrong or not balanced.
+     */
+    static void load(File file, LabelDictionary dictionary, BSTMountain mountain)
+        throws IOException, IllegalArgumentException{
+        try(RandomAccessFile raf = new RandomAccessFile(file, "r");
+            FileChannel channel = raf.getChannel()){
+            long length = channel.size();
+            if(length < HEADER){
+                throw new IOException("The file is not a saved mountain.");
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER);
+            if(header.getInt() != MAGIC){
+                throw new IOException("The file is not a saved mountain.");
+            }
+            if(header.getInt() != FORMAT){
+                throw new IOException("The file was saved in another format.");
+            }
+            int count = header.getInt();
+            long nodeBytes = header.getLong();
+            long labelBytes = header.getLong();
+            if(count < 0 || nodeBytes < 0 || labelBytes < 0 || HEADER + nodeBytes + labelBytes != length){
+                throw new IOException("The saved mountain is damaged.");
+            }
+            if(nodeBytes > Integer.MAX_VALUE || labelBytes > Integer.MAX_VALUE){
+                throw new IOException("The saved mountain is too large to be mapped.");
+            }
+            if(count == 0){
+                if(nodeBytes != 0){
+                    throw new IllegalArgumentException("The saved mountain has more nodes than its header says.");
+                }
+                mountain.restore(null, 0);
+                return;
+            }
+
+            MountainFile in = new MountainFile(channel);
+            in.nodes = channel.map(FileChannel.MapMode.READ_ONLY, HEADER, nodeBytes);
+            in.labels = channel.map(FileChannel.MapMode.READ_ONLY, HEADER + nodeBytes, labelBytes);
+            BSTMountain.Node root;
+            try{
+                root = in.read(dictionary, mountain, MAX_HEIGHT, null, null);
+            }
+            catch(IndexOutOfBoundsException | BufferUnderflowException e){
+                throw new IOException("The saved mountain is damaged.", e);
+            }
+            if(in.nodesRead != count){
+                throw new IllegalArgumentException("The saved mountain has " + in.nodesRead 
+                    + " nodes, but its header says " + count + ".");
+            }
+            if(in.nodes.hasRemaining() || in.labels.hasRemaining()){
+                throw new IOException("The saved mountain is damaged.");
+            }
+            mountain.restore(root, count);
+        }
+    }
+
+    /**
+     * It reads the next node and its subtree in preorder.
+     * @param dictionary is the dictionary of the labels, it can be null.
+     * @param mountain is the mountain the nodes are made for.
+     * @param limit is the height of the parent, the node has to be lower.
+     * @param low is the reststop every label of the subtree has to be bigger than, null if there is none.
+     * @param high is the reststop every label of the subtree has to be smaller than, null if there is none.
+     * @return the node.
+     * @throws IOException if the nodes or the labels cannot be read.
+     * @throws IllegalArgumentException if the saved height is not the height of the subtree,
+     * the subtree is not balanced, or the labels are not in order.
+     */
+    private BSTMountain.Node read(LabelDictionary dictionary, BSTMountain mountain, int limit,
+        RestStop low, RestStop high) throws IOException, IllegalArgumentException{
+        int height = nodes.get();
+        int children = nodes.get();
+        //the heights go down, so a damaged file cannot make the recursion too deep
+        if(height < 0 || height >= limit){
+            throw new IllegalArgumentException("A height of the saved mountain is wrong.");
+        }
+        nodesRead ++;
+        int food = getNumber(nodes);
+        int raft = getNumber(nodes);
+        int axe = getNumber(nodes);
+        int fallenTree = getNumber(nodes);
+        int river = getNumber(nodes);
+        int labelLength = getNumber(nodes);
+
+        //the label is taken straight from the mapped bytes
+        int start = labels.position();
+        if(labelLength > labels.limit() - start){
+            throw new IOException("The saved mountain is damaged.");
+        }
+        int end = start + labelLength;
+        RestStop stop;
+        if(dictionary != null){
+            stop = new RestStop(dictionary, dictionary.intern(labels, start, end));
+        }
+        else{
+            byte[] bytes = new byte[labelLength];
+            labels.get(start, bytes);
+            stop = new RestStop(new String(bytes, StandardCharsets.UTF_8));
+        }
+        labels.position(end);
+        //the labels have to be in order, as they were in the saved tree
+        if((low != null && low.compareTo(stop) >= 0) || (high != null && stop.compareTo(high) >= 0)){
+            throw new IllegalArgumentException("The labels of the saved mountain are not in order.");
+        }
+        stop.setFood(food);
+        stop.setRaft(raft);
+        stop.setAxe(axe);
+        stop.setFallenTree(fallenTree);
+        stop.setRiver(river);
+
+        BSTMountain.Node node = new BSTMountain.Node(stop);
+        if((children & HAS_LEFT) != 0){
+            node.left = read(dictionary, mountain, height, low, stop);
+        }
+        if((children & HAS_RIGHT) != 0){
+            node.right = read(dictionary, mountain, height, stop, high);
+        }
+        mountain.updateHeight(node);
+        if(node.height != height){
+            throw new IllegalArgumentException("A height of the saved mountain is wrong.");
+        }
+        if(Math.abs(mountain.balFact(node)) > 1){
+            throw new IllegalArgumentException("The saved mountain is not balanced.");
+        }
+        return node;
+    }
+}
@@ -1,7 +1,8 @@
 package project5;
-import java.util.Scanner;
 import java.io.File;
-import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.function.Consumer;
 
 /**
  * MountainHike class is the main program that
@@ -18,18 +19,85 @@ public class MountainHike{
      * main function will print an error message and terminate.
      * After checking, it will add it to the mountain,
      * and run the recursive function to get the paths.
+     * The option --parallel reads the input file on every core.
+     * The option --dictionary keeps the labels in a LabelDictionary.
+     * The option --stats prints the statistics of the run to the error stream.
+     * The option --serve builds the mountain and then answers the searches
+     * read from the input, and --serve=port answers them on a local port, 
+     * see MountainServer.
+     * The option --save=file saves the built mountain to a binary file,
+     * and --load reads the input file as a mountain saved that way.
      * @param args is the input stream that will
-     * get the name of the input file.
+     * get the name of the input file and the options.
      */
     public static void main(String[] args){
 
+        String fileName = null;
+        boolean parallel = false;
+        boolean dictionary = false;
+        boolean showStats = false;
+        boolean serve = false;
+        //the port of the server, -1 to answer the standard input
+        int port = -1;
+        boolean load = false;
+        String saveName = null;
+
+        //the arguments that start with -- are options,
+        //the first other argument is the name of the file
+        for(String arg : args){
+            if(arg.equals("--parallel")){
+                parallel = true;
+            }
+            else if(arg.equals("--dictionary")){
+                dictionary = true;
+            }
+            else if(arg.equals("--stats")){
+                showStats = true;
+            }
+            else if(arg.equals("--load")){
+                load = true;
+            }
+            else if(arg.startsWith("--save=") && arg.length() > "--save=".length()){
+                saveName = arg.substring("--save=".length());
+            }
+            else if(arg.equals("--serve")){
+                serve = true;
+            }
+            else if(arg.startsWith("--serve=")){
+                serve = true;
+                try{
+                    port = Integer.parseInt(arg.substring("--serve=".length()));
+                }
+                catch(NumberFormatException e){
+                    port = -1;
+                }
+                if(port < 0 || port > 65535){
+                    System.err.println("Error: the port has to be between 0 and 65535.");
+                    System.exit(1);
+                }
+            }
+            else if(arg.startsWith("--")){
+                System.err.println("Error: unknown option " + arg + ".");
+                System.exit(1);
+            }
+            else if(fileName == null){
+                fileName = arg;
+            }
+        }
+
         //checks if the user entered any argument
-        if(args.length ==0){
+        if(fileName == null){
             System.err.println("Error: please enter a file name as an argument.");
             System.exit(1);
         }
 
-        File inputFile = new File (args[0]);
+        //a dictionary cannot be shared by the threads of the parallel parser
+        if(parallel && dictionary){
+            System.err.println("Error: --parallel and --dictionary cannot be used together.");
+            System.exit(1);
+        }
+
+        File inputFile = new File (fileName);
 
         //check if the inputted file exists
         if(!inputFile.exists()){
@@ -43,89 +111,159 @@ public class MountainHike{
             System.exit(1);
         }
         
-        BSTMountain hike = new BSTMountain();
-        Scanner in = null;
-        //check if the file can be opened
-		try{
-            in = new Scanner(inputFile);
+        MountainStats stats = showStats ? new MountainStats() : null;
+        BSTMountain hike = null;
+        try{
+            if(load){
+                //a saved mountain is loaded as it is, the time is counted as parsing
+                long start = System.nanoTime();
+                hike = BSTMountain.load(inputFile, dictionary ? new LabelDictionary() : null);
+                hike.setStats(stats);
+                if(stats != null){
+                    stats.addTime(MountainStats.Phase.PARSE, System.nanoTime() - start);
+                }
+            }
+            else{
+                hike = read(inputFile, parallel, dictionary, stats);
+            }
         }
-        catch(FileNotFoundException e){
-            System.err.println("Error: the file cannot be opened for reading.");
+        catch(IOException e){
+            System.err.println("Error: the file cannot be opened for reading. " + e.getMessage());
+            System.exit(1);
+        }
+        catch(IllegalArgumentException e){
+            System.err.println("Error: the saved mountain is not valid. " + e.getMessage());
+            System.exit(1);
+        }
+        
+        //if the mountain is empty, print an error message and terminate
+        if(hike.size() == 0){
+            System.err.println("The mountain is empty, cannot go down");
             System.exit(1);
         }
 
+        //save the mountain, so the next run can load it
+        if(saveName != null){
+            try{
+                hike.save(new File(saveName));
+            }
+            catch(IOException e){
+                System.err.println("Error: the mountain cannot be saved. " + e.getMessage());
+                System.exit(1);
+            }
+        }
 
-		String line = null;
-		String[] tokens;
-
-        //reads every line of the input, splits them
-        //create reststop if appropriate and add it to the mountain
-        while(in.hasNextLine()){
-            line = in.nextLine();
-            tokens = line.split("\\s+");
-
-            //if the supposed label is empty, skip
-            if(tokens[0].equals("")){
-                continue;
+        //answer the searches until the input ends, instead of going down once
+        if(serve){
+            //the searches of the server are not counted,
+            //so the statistics of reading and building are printed before it starts
+            if(stats != null){
+                System.err.print(stats);
+            }
+            MountainServer server = new MountainServer(hike.snapshot());
+            try{
+                if(port < 0){
+                    server.serve(System.in, System.out);
+                }
+                else{
+                    server.listen(port);
+                }
+            }
+            catch(IOException e){
+                System.err.println("Error: " + e.getMessage());
+                System.exit(1);
             }
+            finally{
+                server.close();
+            }
+            return;
+        }
 
-            RestStop stop = new RestStop(tokens[0]);
-            boolean obs = false;
-            
-            //add supplies and obstacles to the reststop
-            for (int j=1; j<tokens.length; j++){
-                if(obs == false){
-                    if (tokens[j].equals("food")){
-                        stop.setFood(1);
-                    }
+        //if the mountain is valid, godown the mountain,
+        //every path is written as soon as it is found,
+        //goDown counts the time of the writes as the print phase
+        SolutionWriter out = new SolutionWriter(System.out, stdoutCharset(), SolutionWriter.DEFAULT_BUFFER);
+        long printStart = 0;
+        try{
+            hike.goDown(out);
 
-                    else if(tokens[j].equals("raft")){
-                        stop.setRaft(1);
-                    }
+            //the empty line at the end, that printing the mountain used to add
+            printStart = System.nanoTime();
+            out.newLine();
+            out.flush();
+        }
+        catch(IOException e){
+            System.err.println("Error: the paths cannot be written. " + e.getMessage());
+            System.exit(1);
+        }
 
-                    else if(tokens[j].equals("axe")){
-                        stop.setAxe(1);
-                    }
+        //the statistics go to the error stream, so the paths are not changed
+        if(stats != null){
+            //the last line and the flush are printing too
+            stats.addTime(MountainStats.Phase.PRINT, System.nanoTime() - printStart);
+            System.err.print(stats);
+        }
+    }
 
-                    //if we have reached obstacles, set the obstacle value to true
-                    //it is to prevent any supplies to be added after the obstacles
-                    else if (tokens[j].equals("river") || tokens[j].equals("fallen")){
-                        obs = true;
-                    }
+    /**
+     * It finds the charset System.out uses,
+     * so the paths are written with the same bytes as printing them.
+     * @return the charset of the standard output.
+     */
+    private static Charset stdoutCharset(){
+        for(String property : new String[]{"stdout.encoding", "sun.stdout.encoding"}){
+            String name = System.getProperty(property);
+            if(name != null){
+                try{
+                    return Charset.forName(name);
+                }
+                catch(IllegalArgumentException e){
+                    //try the next one
                 }
-
-                //add the obstacles to the reststop
-                if(obs == true){
-                    if(tokens[j].equals("river")){
-                        stop.setRiver(1);
-                    }
-
-                    else if(tokens[j].equals("fallen") && (j+1) < tokens.length && tokens[j+1].equals("tree")){
-                        stop.setFallenTree(1);
-                    }
-
-                    else if (tokens[j].equals("tree")){
-                        continue;
-                    }
-                }  
             }
-
-            //add the reststop to the mountain
-            hike.add(stop);
         }
-        
-        in.close();
-        
-        //if the mountain is empty, print an error message and terminate
-        if(hike.size() == 0){
-            System.err.println("The mountain is empty, cannot go down");
-            System.exit(1);
+        return Charset.defaultCharset();
+    }
+
+    /**
+     * It reads every line of the input file,
+     * creates a reststop if appropriate and adds it to a new mountain.
+     * @param inputFile is the input file.
+     * @param parallel is true to read the file on every core.
+     * @param dictionary is true to keep the labels in a LabelDictionary.
+     * @param stats is the counters of the run, null if the run is not counted.
+     * @return the mountain.
+     * @throws IOException if the file cannot be read.
+     */
+    private static BSTMountain read(File inputFile, boolean parallel, boolean dictionary, MountainStats stats)
+        throws IOException{
+        BSTMountain hike = new BSTMountain();
+        Consumer<RestStop> build = hike::add;
+        if(stats != null){
+            hike.setStats(stats);
+            //the time spent in add is the build phase, the rest is parsing
+            build = stop -> {
+                long start = System.nanoTime();
+                hike.add(stop);
+                stats.addTime(MountainStats.Phase.BUILD, System.nanoTime() - start);
+            };
         }
 
-        //if the mountain is valid, godown the mountain
-        hike.goDown();
+        long parseStart = System.nanoTime();
+        if(parallel){
+            MountainParser.parseParallel(inputFile, Runtime.getRuntime().availableProcessors(), build);
+        }
+        else if(dictionary){
+            MountainParser.parse(inputFile, new LabelDictionary(), build);
+        }
+        else{
+            MountainParser.parse(inputFile, build);
+        }
 
-        //print the paths found from going down the mountain
-        System.out.println(hike);
+        if(stats != null){
+            stats.addTime(MountainStats.Phase.PARSE, 
+                System.nanoTime() - parseStart - stats.getTime(MountainStats.Phase.BUILD));
+        }
+        return hike;
     }
 }
\ No newline at end of file
@@ -0,0 +1,495 @@
+package project5;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * MountainParser reads the reststops of a mountain from an input file.
+ * The file is mapped into memory and the bytes are read directly,
+ * without Scanner, regular expressions or a String for every token.
+ * The only String made for a line is the label of the reststop.
+ * 
+ * The rules are the same as the original parser in MountainHike:
+ * a line that is empty or starts with a white space is skipped, 
+ * the first token is the label, supplies (food, raft, axe) are counted 
+ * only before the first obstacle, every "river" is a river obstacle,
+ * and every "fallen" that is followed by "tree" is a fallen tree obstacle.
+ * The file is read as UTF-8.
+ * 
+ * @author Oyujin Ulziibaatar
+ */
+public class MountainParser {
+
+    //the size of the part of the file that is mapped at once
+    private static final long WINDOW = 1L << 30;
+
+    //kinds of the tokens
+    private static final int OTHER = 0;
+    private static final int FOOD = 1;
+    private static final int RAFT = 2;
+    private static final int AXE = 3;
+    private static final int RIVER = 4;
+    private static final int FALLEN = 5;
+    private static final int TREE = 6;
+
+    /**
+     * The parser only has static functions.
+     */
+    private MountainParser(){
+    }
+
+    /**
+     * This function reads every reststop from the given file
+     * and gives them to the consumer in the order of the file.
+     * @param file is the input file.
+     * @param stops is the consumer that gets the reststops.
+     * @return the number of reststops read.
+     * @throws IOException if the file cannot be opened or read.
+     */
+    public static int parse(File file, Consumer<RestStop> stops) throws IOException{
+        return parse(file, null, stops);
+    }
+
+    /**
+     * This function reads every reststop from the given file
+     * and gives them to the consumer in the order of the file.
+     * The labels are added to the dictionary straight from the bytes of the file,
+     * so no String is made for an ASCII label.
+     * @param file is the input file.
+     * @param dictionary is the dictionary of the labels, null to keep the labels as Strings.
+     * @param stops is the consumer that gets the reststops.
+     * @return the number of reststops read.
+     * @throws IOException if the file cannot be opened or read.
+     */
+    public static int parse(File file, LabelDictionary dictionary, Consumer<RestStop> stops) throws IOException{
+        return parse(file, dictionary, stops, WINDOW);
+    }
+
+    /**
+     * This function reads every reststop from the given file,
+     * mapping at most the given number of bytes of the file at once.
+     * @param file is the input file.
+     * @param dictionary is the dictionary of the labels, null to keep the labels as Strings.
+     * @param stops is the consumer that gets the reststops.
+     * @param window is the largest part of the file that is mapped at once, in bytes.
+     * @return the number of reststops read.
+     * @throws IOException if the file cannot be opened or read, or a line is longer than the window.
+     */
+    static int parse(File file, LabelDictionary dictionary, Consumer<RestStop> stops, long window)
+        throws IOException{
+        MountainEvents.Parse event = new MountainEvents.Parse();
+        event.begin();
+        int count = 0;
+        long size;
+        try(RandomAccessFile raf = new RandomAccessFile(file, "r");
+            FileChannel channel = raf.getChannel()){
+
+            size = channel.size();
+            long position = 0;
+            while(position < size){
+                long length = Math.min(window, size - position);
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                int end = (int) length;
+
+                //if it is not the end of the file, stop after the last complete line
+                //the rest of the line is read with the next part
+                if(position + length < size){
+                    end = lastLineBreak(buffer, end);
+                    if(end == 0){
+                        throw new IOException("A line of the file is too long.");
+                    }
+                }
+                count += parse(buffer, 0, end, dictionary, stops);
+                position += end;
+            }
+        }
+        commitParse(event, file, size, count, false);
+        return count;
+    }
+
+    /**
+     * This function reads the reststops of the given file on many threads.
+     * The file is split into parts at the line breaks,
+     * every part is mapped and read by a worker thread,
+     * and the reststops are given to the consumer on the calling thread
+     * in the order of the file, so the first of the duplicates still comes first.
+     * Every reststop of the file is kept until all the parts are read,
+     * and the tree is still built on the calling thread, one reststop at a time.
+     * @param file is the input file.
+     * @param threads is the number of worker threads.
+     * @param stops is the consumer that gets the reststops.
+     * @return the number of reststops read.
+     * @throws IOException if the file cannot be opened or read.
+     * @throws IllegalArgumentException if the number of threads is not positive.
+     */
+    public static int parseParallel(File file, int threads, Consumer<RestStop> stops)
+        throws IOException, IllegalArgumentException{
+        if(threads <= 0){
+            throw new IllegalArgumentException("The number of threads has to be positive integer.");
+        }
+
+        MountainEvents.Parse event = new MountainEvents.Parse();
+        event.begin();
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        try(RandomAccessFile raf = new RandomAccessFile(file, "r");
+            FileChannel channel = raf.getChannel()){
+
+            //split the file into parts, every part starts at the beginning of a line
+            long size = channel.size();
+            long parts = Math.max(threads, (size + WINDOW - 1) / WINDOW);
+            long partSize = Math.max(1, Math.min(WINDOW, (size + parts - 1) / parts));
+            List<Future<List<RestStop>>> results = new ArrayList<>();
+            long start = 0;
+            while(start < size){
+                long end = nextLineStart(channel, Math.min(size, start + partSize), size);
+                if(end - start > WINDOW){
+                    throw new IOException("A line of the file is too long.");
+                }
+                final long from = start;
+                final long length = end - start;
+                results.add(workers.submit(() -> {
+                    List<RestStop> list = new ArrayList<>();
+                    MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, from, length);
+                    parse(buffer, 0, (int) length, list::add);
+                    return list;
+                }));
+                start = end;
+            }
+
+            //give the reststops to the consumer in the order of the file
+            int count = 0;
+            for(Future<List<RestStop>> result : results){
+                for(RestStop stop : result.get()){
+                    stops.accept(stop);
+                    count ++;
+                }
+            }
+            commitParse(event, file, size, count, true);
+            return count;
+        }
+        catch(ExecutionException e){
+            if(e.getCause() instanceof IOException){
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+        catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("The file was not read, the thread was interrupted.");
+        }
+        finally{
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * It finds the beginning of the first line that starts at or after the given position.
+     * Lines are only split after \n, because it is never a part of another line break.
+     * @param channel is the channel of the file.
+     * @param position is the position the search starts from.
+     * @param size is the size of the file.
+     * @return the position after the \n, or the size of the file if there is none.
+     * @throws IOException if the file cannot be read.
+     */
+    private static long nextLineStart(FileChannel channel, long position, long size) throws IOException{
+        if(position == 0 || position >= size){
+            return position;
+        }
+        ByteBuffer block = ByteBuffer.allocate(8192);
+        //the line can start right at the position if the byte before it is \n
+        long p = position - 1;
+        while(p < size){
+            block.clear();
+            int read = channel.read(block, p);
+            if(read <= 0){
+                break;
+            }
+            for(int i = 0; i < read; i++){
+                if(block.get(i) == '\n'){
+                    return p + i + 1;
+                }
+            }
+            p += read;
+        }
+        return size;
+    }
+
+    /**
+     * This function reads every reststop between the given positions of the buffer.
+     * The positions should be at the beginning of a line.
+     * @param buffer is the bytes of the input.
+     * @param from is the position of the first byte.
+     * @param to is the position after the last byte.
+     * @param stops is the consumer that gets the reststops.
+     * @return the number of reststops read.
+     */
+    public static int parse(ByteBuffer buffer, int from, int to, Consumer<RestStop> stops){
+        return parse(buffer, from, to, null, stops);
+    }
+
+    /**
+     * It records the event of reading a file, if the event is enabled.
+     * @param event is the event, it has been begun.
+     * @param file is the input file.
+     * @param size is the size of the file in bytes.
+     * @param count is the number of reststops read.
+     * @param parallel is true if the file was read by parseParallel.
+     */
+    private static void commitParse(MountainEvents.Parse event, File file, long size, int count, boolean parallel){
+        if(event.shouldCommit()){
+            event.file = file.getPath();
+            event.bytes = size;
+            event.reststops = count;
+            event.parallel = parallel;
+            event.commit();
+        }
+    }
+
+    /**
+     * This function reads every reststop between the given positions of the buffer.
+     * @param buffer is the bytes of the input.
+     * @param from is the position of the first byte.
+     * @param to is the position after the last byte.
+     * @param dictionary is the dictionary of the labels, null to keep the labels as Strings.
+     * @param stops is the consumer that gets the reststops.
+     * @return the number of reststops read.
+     */
+    private static int parse(ByteBuffer buffer, int from, int to, LabelDictionary dictionary, 
+        Consumer<RestStop> stops){
+        int count = 0;
+        int i = from;
+        while(i < to){
+            int end = lineEnd(buffer, i, to);
+            RestStop stop = parseLine(buffer, i, end, dictionary);
+            if(stop != null){
+                stops.accept(stop);
+                count ++;
+            }
+            i = end + breakLength(buffer, end, to);
+        }
+        return count;
+    }
+
+    /**
+     * It reads one line of the input.
+     * @param buffer is the bytes of the input.
+     * @param start is the position of the first byte of the line.
+     * @param end is the position after the last byte of the line.
+     * @param dictionary is the dictionary of the labels, it can be null.
+     * @return the reststop of the line, or null if the line is skipped.
+     */
+    private static RestStop parseLine(ByteBuffer buffer, int start, int end, LabelDictionary dictionary){
+        //if the supposed label is empty, skip
+        if(start == end || isSpace(buffer.get(start))){
+            return null;
+        }
+
+        int i = start;
+        while(i < end && !isSpace(buffer.get(i))){
+            i ++;
+        }
+        RestStop stop;
+        if(dictionary != null){
+            stop = new RestStop(dictionary, dictionary.intern(buffer, start, i));
+        }
+        else{
+            stop = new RestStop(label(buffer, start, i));
+        }
+
+        int food = 0;
+        int raft = 0;
+        int axe = 0;
+        int river = 0;
+        int fallenTree = 0;
+        boolean obs = false;
+        int previous = OTHER;
+
+        while(i < end){
+            //skip the white spaces between the tokens
+            if(isSpace(buffer.get(i))){
+                i ++;
+                continue;
+            }
+            int tokenStart = i;
+            while(i < end && !isSpace(buffer.get(i))){
+                i ++;
+            }
+            int kind = kind(buffer, tokenStart, i - tokenStart);
+
+            //no supplies are added after the obstacles
+            if(!obs){
+                if(kind == FOOD){
+                    food ++;
+                }
+                else if(kind == RAFT){
+                    raft ++;
+                }
+                else if(kind == AXE){
+                    axe ++;
+                }
+            }
+
+            //add the obstacles
+            if(kind == RIVER || kind == FALLEN){
+                obs = true;
+            }
+            if(kind == RIVER){
+                river ++;
+            }
+            else if(kind == TREE && previous == FALLEN){
+                fallenTree ++;
+            }
+            previous = kind;
+        }
+
+        stop.setFood(food);
+        stop.setRaft(raft);
+        stop.setAxe(axe);
+        stop.setRiver(river);
+        stop.setFallenTree(fallenTree);
+        return stop;
+    }
+
+    /**
+     * It finds out which word a token is, without making a String.
+     * @param buffer is the bytes of the input.
+     * @param start is the position of the token.
+     * @param length is the number of bytes of the token.
+     * @return the kind of the token.
+     */
+    private static int kind(ByteBuffer buffer, int start, int length){
+        switch(length){
+            case 3:
+                return matches(buffer, start, "axe") ? AXE : OTHER;
+            case 4:
+                if(matches(buffer, start, "food")){
+                    return FOOD;
+                }
+                if(matches(buffer, start, "raft")){
+                    return RAFT;
+                }
+                return matches(buffer, start, "tree") ? TREE : OTHER;
+            case 5:
+                return matches(buffer, start, "river") ? RIVER : OTHER;
+            case 6:
+                return matches(buffer, start, "fallen") ? FALLEN : OTHER;
+            default:
+                return OTHER;
+        }
+    }
+
+    /**
+     * It checks if the bytes at the given position are the given word.
+     * @param buffer is the bytes of the input.
+     * @param start is the position of the token.
+     * @param word is the word, its length should be the length of the token.
+     * @return true if they are the same.
+     */
+    private static boolean matches(ByteBuffer buffer, int start, String word){
+        for(int i = 0; i < word.length(); i++){
+            if(buffer.get(start + i) != word.charAt(i)){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * It makes the label out of the bytes of the input.
+     * @param buffer is the bytes of the input.
+     * @param start is the position of the label.
+     * @param end is the position after the label.
+     * @return the label.
+     */
+    private static String label(ByteBuffer buffer, int start, int end){
+        byte[] bytes = new byte[end - start];
+        for(int i = 0; i < bytes.length; i++){
+            bytes[i] = buffer.get(start + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * It checks if the byte is a white space, the same as \s of a regular expression.
+     * @param b is the byte to be checked.
+     * @return true if it is a white space.
+     */
+    private static boolean isSpace(byte b){
+        return b == ' ' || b == '\t' || b == '\n' || b == 0x0B || b == '\f' || b == '\r';
+    }
+
+    /**
+     * It finds the end of the line, the same line breaks as Scanner.nextLine:
+     * \n, \r, \r\n, and the UTF-8 bytes of U+0085, U+2028 and U+2029.
+     * @param buffer is the bytes of the input.
+     * @param from is the position of the beginning of the line.
+     * @param to is the position after the last byte.
+     * @return the position of the line break, or to if there is no line break.
+     */
+    private static int lineEnd(ByteBuffer buffer, int from, int to){
+        for(int i = from; i < to; i++){
+            if(breakLength(buffer, i, to) > 0){
+                return i;
+            }
+        }
+        return to;
+    }
+
+    /**
+     * It checks if there is a line break at the given position.
+     * @param buffer is the bytes of the input.
+     * @param i is the position to be checked.
+     * @param to is the position after the last byte.
+     * @return the number of bytes of the line break, 0 if there is no line break.
+     */
+    private static int breakLength(ByteBuffer buffer, int i, int to){
+        if(i >= to){
+            return 0;
+        }
+        byte b = buffer.get(i);
+        if(b == '\n'){
+            return 1;
+        }
+        if(b == '\r'){
+            return (i + 1 < to && buffer.get(i + 1) == '\n') ? 2 : 1;
+        }
+        //U+0085 is C2 85
+        if(b == (byte) 0xC2 && i + 1 < to && buffer.get(i + 1) == (byte) 0x85){
+            return 2;
+        }
+        //U+2028 is E2 80 A8 and U+2029 is E2 80 A9
+        if(b == (byte) 0xE2 && i + 2 < to && buffer.get(i + 1) == (byte) 0x80
+            && (buffer.get(i + 2) == (byte) 0xA8 || buffer.get(i + 2) == (byte) 0xA9)){
+            return 3;
+        }
+        return 0;
+    }
+
+    /**
+     * It finds the position after the last \n or \r of the buffer.
+     * @param buffer is the bytes of the input.
+     * @param to is the position after the last byte.
+     * @return the position after the last line break, 0 if there is none.
+     */
+    static int lastLineBreak(ByteBuffer buffer, int to){
+        for(int i = to - 1; i >= 0; i--){
+            byte b = buffer.get(i);
+            if(b == '\n' || b == '\r'){
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+}
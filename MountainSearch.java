@@ -0,0 +1,414 @@
+package project5;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+
+/**
+ * MountainSearch goes down a BSTMountain without recursion.
+ * The nodes that still need to be visited are kept on an explicit stack,
+ * so a very deep mountain cannot overflow the call stack.
+ * Every frame of the stack holds the node, the checkpoint of the 
+ * hiker's supplies and the length of the path before the node.
+ * The stack, the hiker's undo log and the path buffer are reused 
+ * from one solution to the next.
+ * 
+ * The path is kept as the nodes taken from the start, one per level,
+ * and it is turned into text only when path() is called.
+ * 
+ * The search can be paused: next() goes down the mountain until it finds
+ * the next legal path and returns, the following call continues from there.
+ * The paths are found in the same order as the recursive search,
+ * the left child is always finished before the right child.
+ * 
+ * @author Oyujin Ulziibaatar
+ */
+class MountainSearch {
+
+    /**
+     * This class is a path that is shared by its extensions.
+     * Every step links to the step before it, so a path can be 
+     * extended without copying it, and both sides of a branch 
+     * can use the same beginning.
+     */
+    static final class Trail {
+
+        final BSTMountain.Node node;
+        final Trail parent;
+        final int length;
+
+        /**
+         * Constructor for a new step.
+         * @param node is the node of this step.
+         * @param parent is the path before this step, null if it is the first step.
+         */
+        Trail(BSTMountain.Node node, Trail parent){
+            this.node = node;
+            this.parent = parent;
+            this.length = parent == null ? 1 : parent.length + 1;
+        }
+
+        /**
+         * It turns the path into text, the labels are separated by a space.
+         * @return the labels of the path from the first step to this step.
+         */
+        @Override
+        public String toString(){
+            BSTMountain.Node[] steps = new BSTMountain.Node[length];
+            for(Trail t = this; t != null; t = t.parent){
+                steps[t.length - 1] = t.node;
+            }
+            return render(steps, length, new StringBuilder());
+        }
+    }
+
+    //the results of check, the hiker passed or why it could not go on
+    static final int PASSED = 0;
+    static final int NO_FOOD = 1;
+    static final int RIVER = 2;
+    static final int FALLEN_TREE = 3;
+
+    private BSTMountain.Node[] nodes = new BSTMountain.Node[32];
+    private int[] checkpoints = new int[32];
+    private int[] pathLengths = new int[32];
+    private int top = 0;
+
+    private Hiker hiker;
+    //the nodes of the current path, one for every level
+    private BSTMountain.Node[] trail = new BSTMountain.Node[32];
+    private int trailLength = 0;
+    private boolean found = false;
+    private final StringBuilder text = new StringBuilder();
+    //the counters of the search, null if it is not counted
+    private MountainStats stats;
+    //the number of nodes taken from the stack since the last reset
+    private long visited = 0;
+    //the time the search has to stop by, as System.nanoTime, only if timed is true
+    private long deadline;
+    private boolean timed = false;
+
+    /**
+     * It sets the counters of the search.
+     * @param stats is the counters, null to stop counting.
+     */
+    void setStats(MountainStats stats){
+        this.stats = stats;
+    }
+
+    /**
+     * It makes the search stop when the time is up or the thread is interrupted.
+     * Both are checked once every 1024 nodes, so a search that visits
+     * many nodes but finds few paths still stops on time.
+     * The deadline is kept by reset.
+     * @param deadline is the time to stop by, as System.nanoTime.
+     */
+    void setDeadline(long deadline){
+        this.deadline = deadline;
+        this.timed = true;
+    }
+
+    /**
+     * It starts a new search from the given node
+     * with a hiker that has no supplies and an empty path.
+     * @param start is the node the hiker starts from, it can be null.
+     */
+    void reset(BSTMountain.Node start){
+        reset(start, 0, 0, 0, null);
+    }
+
+    /**
+     * It starts a new search from the given node.
+     * Anything left from the previous search is thrown away.
+     * @param start is the node the hiker starts from, it can be null.
+     * @param food is the number of foods the hiker starts with.
+     * @param raft is the number of rafts the hiker starts with.
+     * @param axe is the number of axes the hiker starts with.
+     * @param prefix is the path that was taken before the start node, it can be null.
+     */
+    void reset(BSTMountain.Node start, int food, int raft, int axe, Trail prefix){
+        hiker = new Hiker();
+        hiker.setSupplies(food, raft, axe);
+        found = false;
+        visited = 0;
+
+        //clear the references left in the stack and in the path
+        Arrays.fill(nodes, 0, top, null);
+        Arrays.fill(trail, 0, trailLength, null);
+        top = 0;
+        trailLength = 0;
+
+        //copy the prefix to the path
+        if(prefix != null){
+            for(Trail t = prefix; t != null; t = t.parent){
+                step(t.length - 1, t.node);
+            }
+            trailLength = prefix.length;
+        }
+        if(start != null){
+            push(start, -1, trailLength);
+        }
+    }
+
+    /**
+     * This function goes down the mountain until
+     * it finds the next legal path.
+     * @return true if a path was found, false if there is no more paths.
+     * @throws CancellationException if the search has a deadline
+     * and the time is up or the thread has been interrupted.
+     */
+    boolean next() throws CancellationException{
+        found = false;
+        while(top > 0){
+            //take the next node from the stack
+            top --;
+            BSTMountain.Node stop = nodes[top];
+            nodes[top] = null;
+            trailLength = pathLengths[top];
+
+            //if we came back from the other side of a branch,
+            //recover the supplies the hiker had at the branch
+            if(checkpoints[top] >= 0){
+                hiker.rollback(checkpoints[top]);
+            }
+
+            visited ++;
+            if(timed && (visited & 1023) == 0){
+                checkDeadline();
+            }
+
+            //get the supplies and try to pass the obstacles
+            int result = check(hiker, stop);
+            if(stats != null){
+                stats.nodesVisited ++;
+                stats.prune(result);
+            }
+            if(result != PASSED){
+                continue;
+            }
+
+            //since we passed the reststop successfully we will add it to the possible path
+            step(trailLength, stop);
+            trailLength ++;
+
+            //if we passed every obstacles
+            //and it is the end of the mountain, we have found a legal path
+            if(stop.height == 0){
+                found = true;
+                if(stats != null){
+                    stats.solutions ++;
+                }
+                return true;
+            }
+
+            //a child that is smaller than the parent by more than 1 is a cliff
+            boolean left = canGoLeft(stop);
+            boolean right = canGoRight(stop);
+            if(stats != null){
+                if(!left && stop.left != null){
+                    stats.prunedCliff ++;
+                }
+                if(!right && stop.right != null){
+                    stats.prunedCliff ++;
+                }
+            }
+
+            //since we will be going down, we will eat one food.
+            hiker.eat();
+
+            //the right child is pushed first, so the left child is visited first.
+            //the right child gets a checkpoint to recover the supplies
+            if(left && right){
+                push(stop.right, hiker.checkpoint(), trailLength);
+                push(stop.left, -1, trailLength);
+            }
+            else if(left){
+                push(stop.left, -1, trailLength);
+            }
+            else if(right){
+                push(stop.right, -1, trailLength);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * It stops the search if the time is up or the thread has been interrupted.
+     * @throws CancellationException if the search has to stop.
+     */
+    private void checkDeadline() throws CancellationException{
+        if(System.nanoTime() - deadline >= 0 || Thread.currentThread().isInterrupted()){
+            throw new CancellationException("The search was stopped after " + visited + " nodes.");
+        }
+    }
+
+    /**
+     * Getter for the number of nodes visited since the search was started.
+     * @return the number of nodes taken from the stack.
+     */
+    long visited(){
+        return visited;
+    }
+
+    /**
+     * Getter for the path found by the last call to next().
+     * The labels are put together only when this is called.
+     * @return the path, or null if no path has been found.
+     */
+    String path(){
+        if(!found){
+            return null;
+        }
+        return render(trail, trailLength, text);
+    }
+
+    /**
+     * It writes the path found by the last call to next() to the writer,
+     * without making a String of it.
+     * @param out is the writer.
+     * @throws IOException if the writer cannot write.
+     */
+    void writePath(SolutionWriter out) throws IOException{
+        if(found){
+            out.writePath(trail, trailLength);
+        }
+    }
+
+    /**
+     * It puts the labels of the given nodes together, separated by a space.
+     * @param steps is the nodes of the path.
+     * @param length is the number of nodes in the path.
+     * @param buffer is the buffer that is used to build the text.
+     * @return the path as text.
+     */
+    static String render(BSTMountain.Node[] steps, int length, StringBuilder buffer){
+        buffer.setLength(0);
+        for(int i = 0; i < length; i++){
+            if(i > 0){
+                buffer.append(' ');
+            }
+            steps[i].data.appendLabel(buffer);
+        }
+        return buffer.toString();
+    }
+
+    /**
+     * The hiker arrives at the given reststop:
+     * it gets the supplies from the reststop and tries to pass its obstacles.
+     * These are the same rules for every search of the mountain.
+     * @param hiker is the hiker going down the mountain.
+     * @param stop is the node the hiker is at.
+     * @return true if the hiker can stay on this path, false if the path is not legal.
+     */
+    static boolean pass(Hiker hiker, BSTMountain.Node stop){
+        return check(hiker, stop) == PASSED;
+    }
+
+    /**
+     * It is the same as pass, but it also tells why the hiker could not go on.
+     * @param hiker is the hiker going down the mountain.
+     * @param stop is the node the hiker is at.
+     * @return PASSED if the hiker can stay on this path, 
+     * otherwise NO_FOOD, RIVER or FALLEN_TREE.
+     */
+    static int check(Hiker hiker, BSTMountain.Node stop){
+        //if the hiker does not have what the subtree needs, 
+        //there is no legal path below, so the subtree is skipped
+        if(hiker.getFood() < stop.needFood){
+            return NO_FOOD;
+        }
+        if(hiker.getRaft() < stop.needRaft){
+            return RIVER;
+        }
+        if(hiker.getAxe() < stop.needAxe){
+            return FALLEN_TREE;
+        }
+        return arrive(hiker, stop.data, stop.height == 0);
+    }
+
+    /**
+     * These are the rules of a reststop, for every kind of mountain:
+     * the hiker gets the supplies of the reststop and tries to pass its obstacles.
+     * @param hiker is the hiker going down the mountain.
+     * @param data is the reststop the hiker is at.
+     * @param end is true if the reststop is the end of the mountain.
+     * @return PASSED if the hiker can stay on this path, 
+     * otherwise NO_FOOD, RIVER or FALLEN_TREE.
+     */
+    static int arrive(Hiker hiker, RestStop data, boolean end){
+        //get the supplies from the reststop, if any
+        hiker.getSupplies(data);
+
+        //if a person does not have food and the has not gotten to the foot of the mountain
+        //cannot go down, so this path is no legal
+        if(hiker.getFood()==0 && !end){
+            return NO_FOOD;
+        }
+
+        //try to pass fallentree obstacle if the reststop has one.
+        if(data.getFallenTree() != 0){
+            if(!hiker.passFallenTree(data.getFallenTree())){
+                return FALLEN_TREE;
+            }
+        }
+
+        //try to pass river obstacle if the reststop has one.
+        if(data.getRiver() != 0){
+            if(!hiker.passRiver(data.getRiver())){
+                return RIVER;
+            }
+        }
+        return PASSED;
+    }
+
+    /**
+     * It checks if the hiker can go to the left child of the given node.
+     * If the child is smaller than the node by more than 1, it is a cliff.
+     * It is worked out when the height of the node is updated.
+     * @param stop is the node the hiker is at.
+     * @return true if there is a left child and it is not a cliff.
+     */
+    static boolean canGoLeft(BSTMountain.Node stop){
+        return (stop.ways & BSTMountain.LEFT) != 0;
+    }
+
+    /**
+     * It checks if the hiker can go to the right child of the given node.
+     * If the child is smaller than the node by more than 1, it is a cliff.
+     * It is worked out when the height of the node is updated.
+     * @param stop is the node the hiker is at.
+     * @return true if there is a right child and it is not a cliff.
+     */
+    static boolean canGoRight(BSTMountain.Node stop){
+        return (stop.ways & BSTMountain.RIGHT) != 0;
+    }
+
+    /**
+     * It puts a node on the given level of the path, growing the path if it is full.
+     * @param level is the level of the node, 0 is the first node.
+     * @param node is the node taken at that level.
+     */
+    private void step(int level, BSTMountain.Node node){
+        if(level >= trail.length){
+            trail = Arrays.copyOf(trail, Math.max(level + 1, trail.length * 2));
+        }
+        trail[level] = node;
+    }
+
+    /**
+     * It pushes a new frame to the stack, growing it if it is full.
+     * @param node is the node to be visited.
+     * @param checkpoint is the checkpoint of the supplies to recover
+     * before visiting the node, or -1 to keep the current supplies.
+     * @param length is the number of nodes in the path before the node.
+     */
+    private void push(BSTMountain.Node node, int checkpoint, int length){
+        if(top == nodes.length){
+            nodes = Arrays.copyOf(nodes, top * 2);
+            checkpoints = Arrays.copyOf(checkpoints, top * 2);
+            pathLengths = Arrays.copyOf(pathLengths, top * 2);
+        }
+        nodes[top] = node;
+        checkpoints[top] = checkpoint;
+        pathLengths[top] = length;
+        top ++;
+    }
+}
@@ -0,0 +1,471 @@
+package project5;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * MountainServer answers searches of one mountain that is built only once.
+ * The requests are lines of text, read from a stream or from local sockets,
+ * and every request is answered in the order it was read:
+ *
+ * COUNT [food raft axe]     the number of legal paths, "OK n"
+ * FIRST k [food raft axe]   the first k legal paths, "OK n" and then n lines of paths
+ * HAS [food raft axe]       if there is a legal path, "OK true" or "OK false"
+ * PING                      "OK"
+ * QUIT                      closes the connection
+ *
+ * The supplies are what the hiker starts with, nothing if they are left out.
+ * A request that cannot be answered gets "ERR" and the reason.
+ *
+ * Every request runs on its own virtual thread when the Java version has them,
+ * otherwise on a pool with one thread per core.
+ * Only a limited number of requests can wait or run at the same time,
+ * when there are too many, the server stops reading until some are done.
+ * A request that takes longer than the timeout is cancelled and gets "ERR timeout",
+ * the search checks the time while it goes down, so it stops soon after.
+ * A request keeps its place until its search has stopped, not only until it is answered.
+ * FIRST can ask for at most MAX_PATHS paths.
+ * A request that fails in the server gets "ERR internal error", the cause is written to stderr.
+ * If the answers cannot be written, the server stops reading the connection
+ * and the requests that are still waiting are cancelled.
+ *
+ * @author Oyujin Ulziibaatar
+ */
+public class MountainServer {
+
+    public static final int DEFAULT_MAX_REQUESTS = 1024;
+    public static final long DEFAULT_TIMEOUT_MILLIS = 5000;
+    public static final int MAX_PATHS = 10000;
+
+    //the end of the requests of a connection
+    private static final Pending END = new Pending(0);
+    //how long the reader waits before it checks again that the writer is still running
+    private static final long WAIT_MILLIS = 100;
+
+    /**
+     * This class is a request that has been read, and the answer it will get.
+     */
+    private static final class Pending {
+
+        Future<String> answer;
+        final long deadline;
+        //true when the request has started running, or will never run,
+        //whoever sets it gives the place of the request back
+        final AtomicBoolean started = new AtomicBoolean();
+
+        /**
+         * Constructor for a request that has been read.
+         * @param deadline is the time when the request times out, in nanoseconds.
+         */
+        Pending(long deadline){
+            this.deadline = deadline;
+        }
+    }
+
+    private final BSTMountain.Node root;
+    private volatile long timeoutNanos;
+    private final int maxRequests;
+    private final Semaphore permits;
+    private final ExecutorService workers;
+    private final ExecutorService connections;
+
+    /**
+     * Constructor for a server of the given mountain,
+     * with the default limit of requests and the default timeout.
+     * @param mountain is the mountain to be searched.
+     * @throws IllegalArgumentException if the mountain is null.
+     */
+    public MountainServer(MountainSnapshot mountain) throws IllegalArgumentException{
+        this(mountain, DEFAULT_MAX_REQUESTS, DEFAULT_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Constructor for a server of the given mountain.
+     * @param mountain is the mountain to be searched.
+     * @param maxRequests is the most requests that can wait or run at the same time.
+     * @param timeoutMillis is the longest time a request can take, in milliseconds.
+     * @throws IllegalArgumentException if the mountain is null,
+     * or the limit or the timeout is not positive.
+     */
+    public MountainServer(MountainSnapshot mountain, int maxRequests, long timeoutMillis)
+        throws IllegalArgumentException{
+        if(mountain == null){
+            throw new IllegalArgumentException();
+        }
+        if(maxRequests <= 0 || timeoutMillis <= 0){
+            throw new IllegalArgumentException("The limit and the timeout have to be positive.");
+        }
+        this.root = mountain.root();
+        this.maxRequests = maxRequests;
+        this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        this.permits = new Semaphore(maxRequests);
+        this.workers = newExecutor(Runtime.getRuntime().availableProcessors());
+        this.connections = newExecutor(0);
+    }
+
+    /**
+     * It changes the timeout of the requests read from now on.
+     * @param timeoutMillis is the longest time a request can take, in milliseconds.
+     * @throws IllegalArgumentException if the timeout is not positive.
+     */
+    void setTimeout(long timeoutMillis) throws IllegalArgumentException{
+        if(timeoutMillis <= 0){
+            throw new IllegalArgumentException("The timeout has to be positive.");
+        }
+        this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+    }
+
+    /**
+     * It makes an executor that runs every task on a new virtual thread.
+     * Virtual threads are looked up at runtime, so the server still runs
+     * on a Java version without them, with platform threads instead.
+     * @param threads is the number of platform threads, 0 for a new thread when none is free.
+     * @return the executor.
+     */
+    static ExecutorService newExecutor(int threads){
+        try{
+            Method virtual = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) virtual.invoke(null);
+        }
+        catch(ReflectiveOperationException | UnsupportedOperationException e){
+            return threads > 0 ? Executors.newFixedThreadPool(threads) : Executors.newCachedThreadPool();
+        }
+    }
+
+    /**
+     * It answers the requests read from the input until the input ends.
+     * The answers are written to the output in the order of the requests.
+     * If the output fails, the reading stops, the requests that are not answered
+     * are cancelled and the error of the output is thrown.
+     * @param in is the stream of the requests.
+     * @param out is the stream of the answers.
+     * @throws IOException if the streams cannot be read or written.
+     * @throws IllegalArgumentException if a stream is null.
+     */
+    public void serve(InputStream in, OutputStream out) throws IOException, IllegalArgumentException{
+        if(in == null || out == null){
+            throw new IllegalArgumentException();
+        }
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        BlockingQueue<Pending> pending = new ArrayBlockingQueue<>(maxRequests + 1);
+        Future<?> answers = connections.submit(() -> {
+            write(pending, writer);
+            return null;
+        });
+
+        try{
+            String line;
+            //if the writer has stopped, nothing takes the requests any more, so the reading stops
+            while(!answers.isDone() && (line = reader.readLine()) != null){
+                if(line.trim().equalsIgnoreCase("QUIT")){
+                    break;
+                }
+                //wait for a free place, the requests after this one are not read until then
+                if(!acquire(answers)){
+                    break;
+                }
+                final String request = line;
+                Pending next = new Pending(System.nanoTime() + timeoutNanos);
+                next.answer = workers.submit(() -> run(next, request));
+                if(!offer(pending, next, answers)){
+                    giveUp(next);
+                    break;
+                }
+            }
+            offer(pending, END, answers);
+            answers.get();
+        }
+        catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+            answers.cancel(true);
+        }
+        catch(ExecutionException e){
+            if(e.getCause() instanceof IOException){
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+        finally{
+            //the requests the writer did not take are not answered
+            Pending left;
+            while((left = pending.poll()) != null){
+                if(left != END){
+                    giveUp(left);
+                }
+            }
+        }
+    }
+
+    /**
+     * It waits for a free place for a request, as long as the writer is running.
+     * @param answers is the writer.
+     * @return true if a place was taken, false if the writer has stopped.
+     * @throws InterruptedException if the thread is interrupted.
+     */
+    private boolean acquire(Future<?> answers) throws InterruptedException{
+        while(!permits.tryAcquire(WAIT_MILLIS, TimeUnit.MILLISECONDS)){
+            if(answers.isDone()){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * It puts a request in the queue of the writer, as long as the writer is running.
+     * @param pending is the queue of the writer.
+     * @param next is the request.
+     * @param answers is the writer.
+     * @return true if the request was put in the queue, false if the writer has stopped.
+     * @throws InterruptedException if the thread is interrupted.
+     */
+    private static boolean offer(BlockingQueue<Pending> pending, Pending next, Future<?> answers)
+        throws InterruptedException{
+        while(!answers.isDone()){
+            if(pending.offer(next, WAIT_MILLIS, TimeUnit.MILLISECONDS)){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * It cancels a request that will not be answered.
+     * A request that has not started will never run, so its place is given back here,
+     * a running one gives it back when its search stops.
+     * @param request is the request.
+     */
+    private void giveUp(Pending request){
+        request.answer.cancel(true);
+        if(request.started.compareAndSet(false, true)){
+            permits.release();
+        }
+    }
+
+    /**
+     * It answers a request on a worker thread, and gives its place back when it is done.
+     * @param request is the request that has been read.
+     * @param line is the text of the request.
+     * @return the answer, or "ERR timeout" if the request was given up before it started.
+     */
+    private String run(Pending request, String line){
+        //the writer has already given up on the request and given its place back
+        if(!request.started.compareAndSet(false, true)){
+            return "ERR timeout";
+        }
+        try{
+            return answer(line, request.deadline);
+        }
+        finally{
+            permits.release();
+        }
+    }
+
+    /**
+     * It writes the answers of the requests in order, as they are ready.
+     * The output is flushed when the next answer is not ready.
+     * @param pending is the requests in the order they were read.
+     * @param writer is the output.
+     * @throws IOException if the output cannot be written.
+     * @throws InterruptedException if the thread is interrupted.
+     */
+    private void write(BlockingQueue<Pending> pending, Writer writer) throws IOException, InterruptedException{
+        Pending next = null;
+        try{
+            while(true){
+                next = pending.poll();
+                if(next == null){
+                    writer.flush();
+                    next = pending.take();
+                }
+                if(next == END){
+                    writer.flush();
+                    return;
+                }
+                //the answers before this one are sent while it is still running
+                if(!next.answer.isDone()){
+                    writer.flush();
+                }
+                String reply;
+                try{
+                    reply = next.answer.get(Math.max(0, next.deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                }
+                catch(TimeoutException | CancellationException e){
+                    giveUp(next);
+                    reply = "ERR timeout";
+                }
+                catch(ExecutionException e){
+                    //the client only gets the reason, the cause is for the server
+                    System.err.println("Error: a request failed.");
+                    e.getCause().printStackTrace();
+                    reply = "ERR internal error";
+                }
+                writer.write(reply);
+                writer.write('\n');
+            }
+        }
+        catch(IOException e){
+            //the request being answered is given up too, the reader gives up the rest
+            if(next != null && next != END){
+                giveUp(next);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * It accepts connections on the loopback address and answers
+     * the requests of every connection, until the thread is interrupted
+     * or the server socket fails.
+     * @param port is the port to listen on, 0 for any free port.
+     * @throws IOException if the server socket cannot be opened.
+     */
+    public void listen(int port) throws IOException{
+        try(ServerSocket server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())){
+            System.err.println("Listening on " + server.getLocalSocketAddress());
+            while(!Thread.currentThread().isInterrupted()){
+                Socket socket = server.accept();
+                connections.submit(() -> {
+                    try(Socket s = socket){
+                        serve(s.getInputStream(), s.getOutputStream());
+                    }
+                    return null;
+                });
+            }
+        }
+    }
+
+    /**
+     * It stops the threads of the server.
+     * The requests that are running are interrupted.
+     */
+    public void close(){
+        workers.shutdownNow();
+        connections.shutdownNow();
+    }
+
+    /**
+     * It answers one request, with the timeout of the server.
+     * @param line is the request.
+     * @return the answer, without the last line break.
+     */
+    String answer(String line){
+        return answer(line, System.nanoTime() + timeoutNanos);
+    }
+
+    /**
+     * It answers one request.
+     * The search stops when the deadline is reached or the thread is interrupted.
+     * @param line is the request.
+     * @param deadline is the time to stop by, as System.nanoTime.
+     * @return the answer, without the last line break.
+     */
+    private String answer(String line, long deadline){
+        String[] words = line.trim().split("\\s+");
+        String command = words[0].toUpperCase();
+        try{
+            if(command.equals("PING") && words.length == 1){
+                return "OK";
+            }
+            if(command.equals("COUNT")){
+                MountainSearch search = start(words, 1, deadline);
+                long count = 0;
+                while(search.next()){
+                    count ++;
+                }
+                return "OK " + count;
+            }
+            if(command.equals("HAS")){
+                return "OK " + start(words, 1, deadline).next();
+            }
+            if(command.equals("FIRST") && words.length >= 2){
+                int limit = number(words[1]);
+                if(limit > MAX_PATHS){
+                    throw new IllegalArgumentException("at most " + MAX_PATHS + " paths");
+                }
+                MountainSearch search = start(words, 2, deadline);
+                StringBuilder paths = new StringBuilder();
+                int count = 0;
+                while(count < limit && search.next()){
+                    paths.append('\n').append(search.path());
+                    count ++;
+                }
+                return "OK " + count + paths;
+            }
+            return "ERR unknown request";
+        }
+        catch(IllegalArgumentException e){
+            return "ERR " + e.getMessage();
+        }
+        catch(CancellationException e){
+            return "ERR timeout";
+        }
+    }
+
+    /**
+     * It starts a search with the supplies given in the request.
+     * @param words is the words of the request.
+     * @param from is the index of the first supply.
+     * @param deadline is the time the search has to stop by, as System.nanoTime.
+     * @return the search, ready to go down.
+     * @throws IllegalArgumentException if the supplies are not 3 positive integers.
+     */
+    private MountainSearch start(String[] words, int from, long deadline) throws IllegalArgumentException{
+        int food = 0;
+        int raft = 0;
+        int axe = 0;
+        if(words.length == from + 3){
+            food = number(words[from]);
+            raft = number(words[from + 1]);
+            axe = number(words[from + 2]);
+        }
+        else if(words.length != from){
+            throw new IllegalArgumentException("the supplies are food, raft and axe");
+        }
+        MountainSearch search = new MountainSearch();
+        search.setDeadline(deadline);
+        search.reset(root, food, raft, axe, null);
+        return search;
+    }
+
+    /**
+     * It reads a positive integer of a request.
+     * @param word is the word of the request.
+     * @return the number.
+     * @throws IllegalArgumentException if it is not a positive integer.
+     */
+    private static int number(String word) throws IllegalArgumentException{
+        try{
+            int n = Integer.parseInt(word);
+            if(n >= 0){
+                return n;
+            }
+        }
+        catch(NumberFormatException e){
+            //the message below is used
+        }
+        throw new IllegalArgumentException("not a positive integer: " + word);
+    }
+}
@@ -0,0 +1,63 @@
+package project5;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * MountainSnapshot is a version of a mountain that never changes.
+ * It is taken with BSTMountain.snapshot() or PersistentMountain.snapshot().
+ * Nothing in a snapshot is changed after it is taken, so 
+ * any number of threads can go down it at the same time, without locks.
+ * 
+ * @author Oyujin Ulziibaatar
+ */
+public class MountainSnapshot {
+
+    private final BSTMountain.Node root;
+    private final int size;
+
+    /**
+     * Constructor for a snapshot.
+     * @param root is the root of the mountain, it can be null.
+     * @param size is the number of nodes in the mountain.
+     */
+    MountainSnapshot(BSTMountain.Node root, int size){
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * This method returns the size of the snapshot.
+     * @return number of nodes in the snapshot.
+     */
+    public int size(){
+        return size;
+    }
+
+    /**
+     * Getter for the root of the snapshot, the nodes should not be changed.
+     * @return the root, null if the snapshot is empty.
+     */
+    BSTMountain.Node root(){
+        return root;
+    }
+
+    /**
+     * This function goes down the snapshot lazily, the same as BSTMountain.solutions().
+     * @return an iterator over the legal paths, in the same order as goDown.
+     */
+    public Iterator<String> solutions(){
+        return new BSTMountain.SolutionIterator(root);
+    }
+
+    /**
+     * This function returns the legal paths of the snapshot as a sequential stream.
+     * @return a stream of the legal paths, in the same order as goDown.
+     */
+    public Stream<String> solutionStream(){
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(solutions(), 
+            Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+}
@@ -0,0 +1,240 @@
+package project5;
+import java.util.Arrays;
+
+/**
+ * MountainStats counts what a mountain does while it is built and searched:
+ * the rotations of every type, the comparisons made by add,
+ * the nodes visited by the search, the branches cut off and why,
+ * the legal paths found, and the time spent in every phase of a run.
+ *
+ * The counters are plain fields, so counting costs almost nothing,
+ * and a mountain without a MountainStats does not count at all.
+ * A MountainStats should be used by one thread at a time,
+ * the parallel searches and the iterators of the mountain are not counted.
+ *
+ * @author Oyujin Ulziibaatar
+ */
+public class MountainStats {
+
+    /**
+     * The phases of a run of the program.
+     */
+    public enum Phase {
+        PARSE, BUILD, SEARCH, PRINT
+    }
+
+    long rotationsLL = 0;
+    long rotationsRR = 0;
+    long rotationsLR = 0;
+    long rotationsRL = 0;
+    long inserts = 0;
+    long comparisons = 0;
+    long nodesVisited = 0;
+    long prunedCliff = 0;
+    long prunedFood = 0;
+    long prunedRiver = 0;
+    long prunedFallenTree = 0;
+    long solutions = 0;
+    private final long[] times = new long[Phase.values().length];
+
+    /**
+     * Getter for the number of LL rotations.
+     * @return the number of LL rotations.
+     */
+    public long getRotationsLL(){
+        return rotationsLL;
+    }
+
+    /**
+     * Getter for the number of RR rotations.
+     * @return the number of RR rotations.
+     */
+    public long getRotationsRR(){
+        return rotationsRR;
+    }
+
+    /**
+     * Getter for the number of LR rotations.
+     * @return the number of LR rotations.
+     */
+    public long getRotationsLR(){
+        return rotationsLR;
+    }
+
+    /**
+     * Getter for the number of RL rotations.
+     * @return the number of RL rotations.
+     */
+    public long getRotationsRL(){
+        return rotationsRL;
+    }
+
+    /**
+     * Getter for the number of reststops given to add,
+     * the duplicates are counted too.
+     * @return the number of inserts.
+     */
+    public long getInserts(){
+        return inserts;
+    }
+
+    /**
+     * Getter for the number of labels compared by add.
+     * @return the number of comparisons.
+     */
+    public long getComparisons(){
+        return comparisons;
+    }
+
+    /**
+     * It returns the average number of comparisons for one insert.
+     * @return the comparisons per insert, 0 if nothing was added.
+     */
+    public double getComparisonsPerInsert(){
+        if(inserts == 0){
+            return 0;
+        }
+        return (double) comparisons / inserts;
+    }
+
+    /**
+     * Getter for the number of nodes the search has taken from its stack.
+     * @return the number of nodes visited.
+     */
+    public long getNodesVisited(){
+        return nodesVisited;
+    }
+
+    /**
+     * Getter for the number of children that were not visited
+     * because they are cliffs.
+     * @return the number of branches cut off by cliffs.
+     */
+    public long getPrunedCliff(){
+        return prunedCliff;
+    }
+
+    /**
+     * Getter for the number of nodes where the hiker did not have
+     * enough food to go on.
+     * @return the number of branches cut off for food.
+     */
+    public long getPrunedFood(){
+        return prunedFood;
+    }
+
+    /**
+     * Getter for the number of nodes where the hiker could not pass a river.
+     * @return the number of branches cut off by rivers.
+     */
+    public long getPrunedRiver(){
+        return prunedRiver;
+    }
+
+    /**
+     * Getter for the number of nodes where the hiker could not pass a fallen tree.
+     * @return the number of branches cut off by fallen trees.
+     */
+    public long getPrunedFallenTree(){
+        return prunedFallenTree;
+    }
+
+    /**
+     * Getter for the number of legal paths found.
+     * @return the number of solutions.
+     */
+    public long getSolutions(){
+        return solutions;
+    }
+
+    /**
+     * Getter for the time spent in a phase.
+     * @param phase is the phase.
+     * @return the time in nanoseconds.
+     * @throws IllegalArgumentException if the phase is null.
+     */
+    public long getTime(Phase phase) throws IllegalArgumentException{
+        if(phase == null){
+            throw new IllegalArgumentException();
+        }
+        return times[phase.ordinal()];
+    }
+
+    /**
+     * It adds time to a phase.
+     * @param phase is the phase.
+     * @param nanos is the time in nanoseconds.
+     * @throws IllegalArgumentException if the phase is null.
+     */
+    public void addTime(Phase phase, long nanos) throws IllegalArgumentException{
+        if(phase == null){
+            throw new IllegalArgumentException();
+        }
+        times[phase.ordinal()] += nanos;
+    }
+
+    /**
+     * It counts a node where the hiker could not go on.
+     * @param reason is the reason returned by MountainSearch.check.
+     */
+    void prune(int reason){
+        if(reason == MountainSearch.NO_FOOD){
+            prunedFood ++;
+        }
+        else if(reason == MountainSearch.RIVER){
+            prunedRiver ++;
+        }
+        else if(reason == MountainSearch.FALLEN_TREE){
+            prunedFallenTree ++;
+        }
+    }
+
+    /**
+     * It sets every counter and every time back to 0.
+     */
+    public void reset(){
+        rotationsLL = 0;
+        rotationsRR = 0;
+        rotationsLR = 0;
+        rotationsRL = 0;
+        inserts = 0;
+        comparisons = 0;
+        nodesVisited = 0;
+        prunedCliff = 0;
+        prunedFood = 0;
+        prunedRiver = 0;
+        prunedFallenTree = 0;
+        solutions = 0;
+        Arrays.fill(times, 0);
+    }
+
+    /**
+     * It writes the counters as a report, one group of counters per line.
+     * @return the report.
+     */
+    @Override
+    public String toString(){
+        StringBuilder report = new StringBuilder();
+        report.append("Mountain statistics:").append(System.lineSeparator());
+        report.append(String.format("  rotations: LL=%d RR=%d LR=%d RL=%d%n",
+            rotationsLL, rotationsRR, rotationsLR, rotationsRL));
+        report.append(String.format("  inserts: %d, comparisons: %d (%.2f per insert)%n",
+            inserts, comparisons, getComparisonsPerInsert()));
+        report.append(String.format("  nodes visited: %d%n", nodesVisited));
+        report.append(String.format("  pruned: cliff=%d food=%d river=%d fallen tree=%d%n",
+            prunedCliff, prunedFood, prunedRiver, prunedFallenTree));
+        report.append(String.format("  solutions: %d%n", solutions));
+        report.append(String.format("  time (ms): parse=%.3f build=%.3f search=%.3f print=%.3f%n",
+            millis(Phase.PARSE), millis(Phase.BUILD), millis(Phase.SEARCH), millis(Phase.PRINT)));
+        return report.toString();
+    }
+
+    /**
+     * It returns the time of a phase in milliseconds.
+     * @param phase is the phase.
+     * @return the time in milliseconds.
+     */
+    private double millis(Phase phase){
+        return times[phase.ordinal()] / 1e6;
+    }
+}
@@ -0,0 +1,107 @@
+package project5;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * ParallelSearch goes down the mountain on a ForkJoinPool.
+ * When both children of a node can be taken and the node is high enough,
+ * the right subtree is forked to another thread while this thread
+ * goes down the left subtree.
+ * Every task has its own hiker, so the supplies are never shared.
+ * Below the threshold height, the task runs the sequential MountainSearch.
+ * The paths of the left subtree are always put before the paths 
+ * of the right subtree, so the order is the same as goDown.
+ * 
+ * @author Oyujin Ulziibaatar
+ */
+class ParallelSearch extends RecursiveTask<List<String>> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final BSTMountain.Node stop;
+    private final int food;
+    private final int raft;
+    private final int axe;
+    private final MountainSearch.Trail prefix;
+    private final int threshold;
+
+    /**
+     * Constructor for a new task.
+     * @param stop is the node the hiker starts from.
+     * @param food is the number of foods the hiker has when it gets to the node.
+     * @param raft is the number of rafts the hiker has when it gets to the node.
+     * @param axe is the number of axes the hiker has when it gets to the node.
+     * @param prefix is the path that was taken before the node, it can be null.
+     * @param threshold is the height below which the search is sequential.
+     */
+    ParallelSearch(BSTMountain.Node stop, int food, int raft, int axe, MountainSearch.Trail prefix, int threshold){
+        this.stop = stop;
+        this.food = food;
+        this.raft = raft;
+        this.axe = axe;
+        this.prefix = prefix;
+        this.threshold = threshold;
+    }
+
+    /**
+     * It finds all the legal paths that start at the node of this task.
+     * @return the paths in the order of goDown.
+     */
+    @Override
+    protected List<String> compute(){
+        List<String> paths = new ArrayList<>();
+
+        //small subtrees are not worth splitting
+        if(stop.height < threshold){
+            MountainSearch search = new MountainSearch();
+            search.reset(stop, food, raft, axe, prefix);
+            while(search.next()){
+                paths.add(search.path());
+            }
+            return paths;
+        }
+
+        Hiker hiker = new Hiker();
+        hiker.setSupplies(food, raft, axe);
+        if(!MountainSearch.pass(hiker, stop)){
+            return paths;
+        }
+
+        //the path is shared with the other side of the branch, it is not copied
+        MountainSearch.Trail path = new MountainSearch.Trail(stop, prefix);
+
+        //the threshold can be 0, so this can still be the end of the mountain
+        if(stop.height == 0){
+            paths.add(path.toString());
+            return paths;
+        }
+
+        boolean left = MountainSearch.canGoLeft(stop);
+        boolean right = MountainSearch.canGoRight(stop);
+        hiker.eat();
+
+        ParallelSearch leftTask = null;
+        ParallelSearch rightTask = null;
+        if(left){
+            leftTask = new ParallelSearch(stop.left, hiker.getFood(), hiker.getRaft(), hiker.getAxe(), path, threshold);
+        }
+        if(right){
+            rightTask = new ParallelSearch(stop.right, hiker.getFood(), hiker.getRaft(), hiker.getAxe(), path, threshold);
+        }
+
+        //go both ways: the right side goes to another thread
+        if(leftTask != null && rightTask != null){
+            rightTask.fork();
+            paths.addAll(leftTask.compute());
+            paths.addAll(rightTask.join());
+        }
+        else if(leftTask != null){
+            paths.addAll(leftTask.compute());
+        }
+        else if(rightTask != null){
+            paths.addAll(rightTask.compute());
+        }
+        return paths;
+    }
+}
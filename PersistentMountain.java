@@ -0,0 +1,75 @@
+package project5;
+
+import java.util.Collection;
+
+/**
+ * PersistentMountain is a mountain that can be searched while it is being built.
+ * One thread adds the reststops, and after every add the new version 
+ * of the mountain is published as a MountainSnapshot.
+ * Any other thread can take the latest snapshot and go down it without locks.
+ * Adding copies only the nodes on the way down to the new reststop,
+ * the rest of the tree is shared with the older snapshots.
+ * 
+ * @author Oyujin Ulziibaatar
+ */
+public class PersistentMountain {
+
+    private final BSTMountain mountain = new BSTMountain();
+    private volatile MountainSnapshot latest;
+
+    /**
+     * Constuctor for new PersistentMountain object.
+     * The first snapshot is an empty mountain.
+     */
+    public PersistentMountain(){
+        this.latest = mountain.snapshot();
+    }
+
+    /**
+     * It adds the reststop to the mountain and publishes the new version.
+     * Only one thread should add.
+     * @param other is reststop object to be added to the mountain.
+     * @throws IllegalArgumentException if the reststop is null.
+     */
+    public void add(RestStop other) throws IllegalArgumentException{
+        int before = mountain.size();
+        mountain.add(other);
+        //a duplicate does not change the mountain
+        if(mountain.size() != before){
+            latest = mountain.snapshot();
+        }
+    }
+
+    /**
+     * It adds all the reststops to the mountain and publishes 
+     * the new version once, after the whole batch.
+     * Only one thread should add.
+     * @param stops is the reststops to be added.
+     * @return the number of reststops that were added.
+     * @throws IllegalArgumentException if the collection or any of the reststops is null.
+     */
+    public int addAll(Collection<RestStop> stops) throws IllegalArgumentException{
+        int added = mountain.addAll(stops);
+        if(added != 0){
+            latest = mountain.snapshot();
+        }
+        return added;
+    }
+
+    /**
+     * This method returns the size of the latest version.
+     * @return number of nodes in the mountain.
+     */
+    public int size(){
+        return latest.size();
+    }
+
+    /**
+     * It returns the latest published version of the mountain.
+     * It can be called from any thread.
+     * @return the snapshot of the latest version.
+     */
+    public MountainSnapshot snapshot(){
+        return latest;
+    }
+}
@@ -4,7 +4,9 @@ import java.lang.IllegalArgumentException;
 /**
  * This class represents the reststops.
  * Every reststop has label, supplies and obstacles. 
- * The supplies and the obstacles are saved in an array. 
+ * The supplies and the obstacles are saved as primitive counters. 
+ * The label can be kept in a LabelDictionary, then the reststop
+ * only keeps the id of its label.
  * This class implements the Comparable interface.
  * @author Oyujin Ulziibaatar
  * 
@@ -12,8 +14,18 @@ import java.lang.IllegalArgumentException;
 public class RestStop implements Comparable<RestStop>{
 
     private String label;
-    private String[] supplies = new String[6];
-    private String[] obstacles = new String[4];
+    //the dictionary of the label, null if the label is kept as a String
+    private LabelDictionary dictionary;
+    private int labelId = -1;
+
+    //supplies
+    private int food;
+    private int raft;
+    private int axe;
+
+    //obstacles
+    private int fallenTree;
+    private int river;
 
     /**
      * It is the constructor of a RestStop class.
@@ -24,35 +36,76 @@ public class RestStop implements Comparable<RestStop>{
     public RestStop(String x){
 
         this.label = x;
-        //names of the supplies and the obstacles are added for coherency.
-        supplies[0] = "food";
-        supplies[1] = "0";
-        supplies[2] = "raft";
-        supplies[3] = "0";
-        supplies[4] = "axe";
-        supplies[5] = "0";
+        //every supply and obstacle starts at 0.
+        this.food = 0;
+        this.raft = 0;
+        this.axe = 0;
+        this.fallenTree = 0;
+        this.river = 0;
+    }
 
-        obstacles[0]= "fallen tree";
-        obstacles[1]= "0";
-        obstacles[2]= "river";
-        obstacles[3]= "0";
+    /**
+     * It is the constructor of a RestStop whose label is kept in a dictionary.
+     * @param dictionary is the dictionary of the labels.
+     * @param x is the label, it is added to the dictionary if it is new.
+     * @throws IllegalArgumentException if the dictionary or the label is null,
+     * or if the dictionary does not accept the label.
+     */
+    public RestStop(LabelDictionary dictionary, String x) throws IllegalArgumentException{
+        this(dictionary, checkDictionary(dictionary).intern(x));
+    }
 
+    /**
+     * It is the constructor of a RestStop whose label is already in a dictionary.
+     * @param dictionary is the dictionary of the labels.
+     * @param id is the id of the label in the dictionary.
+     */
+    RestStop(LabelDictionary dictionary, int id){
+        this((String) null);
+        this.dictionary = dictionary;
+        this.labelId = id;
     }
 
     /**
      * Getter for label of the reststop.
+     * If the label is in a dictionary, a new String is made every time.
      * @return the label.
      */
     public String getLabel(){
+        if(this.label == null){
+            return dictionary.label(labelId);
+        }
         return this.label;
     }
 
+    /**
+     * Getter for the id of the label in its dictionary.
+     * @return the id, or -1 if the label is not in a dictionary.
+     */
+    public int getLabelId(){
+        return this.labelId;
+    }
+
+    /**
+     * It adds the label to the builder.
+     * A label in a dictionary is copied from the dictionary, without making a String.
+     * @param builder is the builder the label is added to.
+     */
+    void appendLabel(StringBuilder builder){
+        if(this.label == null){
+            dictionary.appendLabel(labelId, builder);
+        }
+        else{
+            builder.append(this.label);
+        }
+    }
+
     /**
      * Getter for the food of the reststop.
      * @return the food as an integer.
      */
     public int getFood(){
-        return Integer.valueOf(supplies[1]);
+        return food;
     }
 
     /**
@@ -60,7 +113,7 @@ public class RestStop implements Comparable<RestStop>{
      * @return the number of rafts as an integer.
      */
     public int getRaft(){
-        return Integer.valueOf(supplies[3]);
+        return raft;
     }
 
     /**
@@ -68,7 +121,7 @@ public class RestStop implements Comparable<RestStop>{
      * @return the number of axes as an integer.
      */
     public int getAxe(){
-        return Integer.valueOf(supplies[5]);
+        return axe;
     }
 
     /**
@@ -77,7 +130,7 @@ public class RestStop implements Comparable<RestStop>{
      */
     public void setFood(int f){
         checkInput(f);
-        supplies[1]= String.valueOf(getFood()+f);
+        food += f;
     }
 
     /**
@@ -86,7 +139,7 @@ public class RestStop implements Comparable<RestStop>{
      */
     public void setRaft(int r){
         checkInput(r);
-        supplies[3]= String.valueOf(getRaft()+r);
+        raft += r;
     }
 
     /**
@@ -95,7 +148,7 @@ public class RestStop implements Comparable<RestStop>{
      */
     public void setAxe(int a){
         checkInput(a);
-        supplies[5]= String.valueOf(getAxe()+a);
+        axe += a;
     }
 
     /**
@@ -103,7 +156,7 @@ public class RestStop implements Comparable<RestStop>{
      * @return the number of fallen tree obstacle.
      */
     public int getFallenTree(){
-        return Integer.valueOf(obstacles[1]);
+        return fallenTree;
     }
 
     /**
@@ -112,7 +165,7 @@ public class RestStop implements Comparable<RestStop>{
      */
     public void setFallenTree(int ft){
         checkInput(ft);
-        obstacles[1]=String.valueOf(getFallenTree() + ft);
+        fallenTree += ft;
     }
 
     /**
@@ -120,7 +173,7 @@ public class RestStop implements Comparable<RestStop>{
      * @return the number of river obstacles.
      */
     public int getRiver(){
-        return Integer.valueOf(obstacles[3]);
+        return river;
     }
 
     /**
@@ -129,7 +182,7 @@ public class RestStop implements Comparable<RestStop>{
      */
     public void setRiver(int river){
         checkInput(river);
-        obstacles[3]= String.valueOf(getRiver() + river);
+        this.river += river;
     }
 
     /**
@@ -153,7 +206,24 @@ public class RestStop implements Comparable<RestStop>{
      */
     @Override
     public int compareTo(RestStop other){
-        return this.label.compareTo(other.label);
+        //the labels of the same dictionary are compared by their ids
+        if(this.dictionary != null && this.dictionary == other.dictionary){
+            return dictionary.compare(this.labelId, other.labelId);
+        }
+        return this.getLabel().compareTo(other.getLabel());
+    }
+
+    /**
+     * This function checks if the dictionary is null.
+     * @param dictionary is the dictionary to be checked.
+     * @return the dictionary.
+     * @throws IllegalArgumentException if the dictionary is null.
+     */
+    private static LabelDictionary checkDictionary(LabelDictionary dictionary) throws IllegalArgumentException{
+        if(dictionary == null){
+            throw new IllegalArgumentException();
+        }
+        return dictionary;
     }
 
     /**
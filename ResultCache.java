@@ -0,0 +1,308 @@
+package project5;
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * ResultCache remembers the results of the searches of a mountain.
+ * A result is kept for the query that made it: the kind of search,
+ * the supplies the hiker starts with, and the limit of the paths.
+ * Every result belongs to a revision of the mountain, when the mountain changes,
+ * the results of the old revision are thrown away.
+ *
+ * The cache has a budget of bytes: every result is weighed by about
+ * how much memory it takes, and when the results weigh more than the budget,
+ * the ones that were used the longest time ago are thrown away first.
+ * The hits, misses, evictions and invalidations are counted.
+ *
+ * The functions are synchronized, so a cache can be read from many threads.
+ * A cache belongs to the one mountain it was given to, since the revisions
+ * of two mountains can be the same number, it cannot be given to another
+ * mountain until the first one lets it go. The cache does not keep its mountain
+ * alive: once the mountain is no longer used, the cache can be given to another one.
+ *
+ * @author Oyujin Ulziibaatar
+ */
+public class ResultCache {
+
+    //the kinds of search
+    static final int PATHS = 0;
+    static final int COUNT = 1;
+    static final int EXISTS = 2;
+
+    //about the memory a small result and its entry take, in bytes
+    private static final long ENTRY_WEIGHT = 96;
+
+    /**
+     * This class is the key of a result: the query that made it.
+     */
+    static final class Key {
+
+        final int mode;
+        final int food;
+        final int raft;
+        final int axe;
+        final int limit;
+
+        /**
+         * Constructor for a key.
+         * @param mode is the kind of search.
+         * @param food is the number of foods the hiker starts with.
+         * @param raft is the number of rafts the hiker starts with.
+         * @param axe is the number of axes the hiker starts with.
+         * @param limit is the largest number of paths, 0 if it is not used.
+         */
+        Key(int mode, int food, int raft, int axe, int limit){
+            this.mode = mode;
+            this.food = food;
+            this.raft = raft;
+            this.axe = axe;
+            this.limit = limit;
+        }
+
+        @Override
+        public boolean equals(Object other){
+            if(!(other instanceof Key)){
+                return false;
+            }
+            Key key = (Key) other;
+            return mode == key.mode && food == key.food && raft == key.raft
+                && axe == key.axe && limit == key.limit;
+        }
+
+        @Override
+        public int hashCode(){
+            int hash = mode;
+            hash = hash * 31 + food;
+            hash = hash * 31 + raft;
+            hash = hash * 31 + axe;
+            return hash * 31 + limit;
+        }
+    }
+
+    /**
+     * This class is a result and its weight.
+     */
+    private static final class Entry {
+
+        final Object value;
+        final long weight;
+
+        /**
+         * Constructor for an entry.
+         * @param value is the result.
+         * @param weight is the weight of the result.
+         */
+        Entry(Object value, long weight){
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+
+    private final long budget;
+    //the entries from the one used the longest time ago to the one used last
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    //the mountain the results belong to, null if the cache is not given to a mountain
+    private WeakReference<BSTMountain> owner;
+    private long revision = -1;
+    private long weight = 0;
+
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+    private long invalidations = 0;
+
+    /**
+     * Constructor for a cache with the given budget.
+     * @param budget is the most bytes the results can weigh.
+     * @throws IllegalArgumentException if the budget is not positive.
+     */
+    public ResultCache(long budget) throws IllegalArgumentException{
+        if(budget <= 0){
+            throw new IllegalArgumentException("The budget has to be positive.");
+        }
+        this.budget = budget;
+    }
+
+    /**
+     * It gives the cache to a mountain.
+     * The results of another mountain that had the cache before are thrown away.
+     * A mountain that is no longer used gives the cache up by itself.
+     * @param mountain is the mountain.
+     * @throws IllegalArgumentException if the cache belongs to another mountain.
+     */
+    synchronized void bind(BSTMountain mountain) throws IllegalArgumentException{
+        BSTMountain current = owner == null ? null : owner.get();
+        if(current == mountain){
+            return;
+        }
+        if(current != null){
+            throw new IllegalArgumentException("The cache is already used by another mountain.");
+        }
+        owner = new WeakReference<>(mountain);
+        clear();
+        revision = -1;
+    }
+
+    /**
+     * The mountain lets the cache go, so it can be given to another mountain.
+     * @param mountain is the mountain that had the cache.
+     */
+    synchronized void release(BSTMountain mountain){
+        if(owner != null && owner.get() == mountain){
+            owner = null;
+        }
+    }
+
+    /**
+     * It looks up the result of a query.
+     * @param revision is the revision of the mountain.
+     * @param key is the query.
+     * @return the result, or null if it is not in the cache.
+     */
+    synchronized Object get(long revision, Key key){
+        checkRevision(revision);
+        Entry entry = entries.get(key);
+        if(entry == null){
+            misses ++;
+            return null;
+        }
+        hits ++;
+        return entry.value;
+    }
+
+    /**
+     * It keeps the result of a query, and throws away the results
+     * used the longest time ago until the cache is within its budget.
+     * A result that weighs more than the whole budget is not kept.
+     * @param revision is the revision of the mountain that gave the result.
+     * @param key is the query.
+     * @param value is the result.
+     */
+    synchronized void put(long revision, Key key, Object value){
+        checkRevision(revision);
+        long size = weigh(value);
+        if(size > budget){
+            return;
+        }
+        Entry old = entries.put(key, new Entry(value, size));
+        if(old != null){
+            weight -= old.weight;
+        }
+        weight += size;
+
+        Iterator<Entry> oldest = entries.values().iterator();
+        while(weight > budget){
+            weight -= oldest.next().weight;
+            oldest.remove();
+            evictions ++;
+        }
+    }
+
+    /**
+     * If the mountain has changed, it throws away every result of the old revision.
+     * @param current is the revision of the mountain.
+     */
+    private void checkRevision(long current){
+        if(current != revision){
+            if(!entries.isEmpty()){
+                invalidations ++;
+            }
+            entries.clear();
+            weight = 0;
+            revision = current;
+        }
+    }
+
+    /**
+     * It works out about how much memory a result takes.
+     * @param value is the result.
+     * @return the weight in bytes.
+     */
+    private static long weigh(Object value){
+        long size = ENTRY_WEIGHT;
+        if(value instanceof List){
+            for(Object path : (List<?>) value){
+                //a reference, the String and its characters
+                size += 8 + 40 + ((String) path).length();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Getter for the number of queries that were in the cache.
+     * @return the number of hits.
+     */
+    public synchronized long getHits(){
+        return hits;
+    }
+
+    /**
+     * Getter for the number of queries that were not in the cache.
+     * @return the number of misses.
+     */
+    public synchronized long getMisses(){
+        return misses;
+    }
+
+    /**
+     * Getter for the number of results thrown away to stay within the budget.
+     * @return the number of evictions.
+     */
+    public synchronized long getEvictions(){
+        return evictions;
+    }
+
+    /**
+     * Getter for the number of times the results were thrown away
+     * because the mountain changed.
+     * @return the number of invalidations.
+     */
+    public synchronized long getInvalidations(){
+        return invalidations;
+    }
+
+    /**
+     * Getter for the number of results in the cache.
+     * @return the number of results.
+     */
+    public synchronized int size(){
+        return entries.size();
+    }
+
+    /**
+     * Getter for the weight of the results in the cache.
+     * @return the weight in bytes.
+     */
+    public synchronized long getWeight(){
+        return weight;
+    }
+
+    /**
+     * Getter for the budget of the cache.
+     * @return the most bytes the results can weigh.
+     */
+    public long getBudget(){
+        return budget;
+    }
+
+    /**
+     * It throws away every result, the counters are kept.
+     */
+    public synchronized void clear(){
+        entries.clear();
+        weight = 0;
+    }
+
+    /**
+     * It writes the counters of the cache on one line.
+     * @return the counters.
+     */
+    @Override
+    public synchronized String toString(){
+        return String.format("cache: hits=%d misses=%d evictions=%d invalidations=%d results=%d weight=%d/%d",
+            hits, misses, evictions, invalidations, entries.size(), weight, budget);
+    }
+}
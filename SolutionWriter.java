@@ -0,0 +1,270 @@
+package project5;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * SolutionWriter writes the legal paths of a mountain as lines of bytes.
+ * The labels are encoded straight into a large buffer, without making
+ * a String for every path, and the buffer is written out only when it is full
+ * or when flush is called, instead of once per line.
+ * The bytes are the same as printing every path with System.out.println,
+ * as long as the writer has the same charset as System.out.
+ *
+ * A SolutionWriter should be used by one thread at a time.
+ *
+ * @author Oyujin Ulziibaatar
+ */
+public class SolutionWriter implements Closeable, Flushable {
+
+    public static final int DEFAULT_BUFFER = 1 << 16;
+
+    private final WritableByteChannel channel;
+    //the stream under the channel, null if the writer was given a channel
+    private final OutputStream stream;
+    private final ByteBuffer buffer;
+    private final CharsetEncoder encoder;
+    //true if every char below 0x80 is the same byte in the charset
+    private final boolean ascii;
+    private final byte[] lineSeparator;
+    private final StringBuilder label = new StringBuilder();
+    private long lines = 0;
+
+    /**
+     * Constructor for a writer to a stream, with the default charset.
+     * @param out is the stream to write to.
+     * @throws IllegalArgumentException if the stream is null.
+     */
+    public SolutionWriter(OutputStream out) throws IllegalArgumentException{
+        this(out, Charset.defaultCharset(), DEFAULT_BUFFER);
+    }
+
+    /**
+     * Constructor for a writer to a stream.
+     * @param out is the stream to write to.
+     * @param charset is the charset of the labels.
+     * @param size is the size of the buffer in bytes.
+     * @throws IllegalArgumentException if the stream or the charset is null,
+     * or the buffer is smaller than 16 bytes.
+     */
+    public SolutionWriter(OutputStream out, Charset charset, int size) throws IllegalArgumentException{
+        this(Channels.newChannel(check(out)), out, charset, size);
+    }
+
+    /**
+     * Constructor for a writer to a channel, with the default charset.
+     * @param channel is the channel to write to.
+     * @throws IllegalArgumentException if the channel is null.
+     */
+    public SolutionWriter(WritableByteChannel channel) throws IllegalArgumentException{
+        this(channel, Charset.defaultCharset(), DEFAULT_BUFFER);
+    }
+
+    /**
+     * Constructor for a writer to a channel.
+     * @param channel is the channel to write to.
+     * @param charset is the charset of the labels.
+     * @param size is the size of the buffer in bytes.
+     * @throws IllegalArgumentException if the channel or the charset is null,
+     * or the buffer is smaller than 16 bytes.
+     */
+    public SolutionWriter(WritableByteChannel channel, Charset charset, int size) throws IllegalArgumentException{
+        this(check(channel), null, charset, size);
+    }
+
+    /**
+     * Constructor for a writer to a channel, and the stream under it if there is one.
+     * @param channel is the channel to write to.
+     * @param stream is the stream under the channel, it can be null.
+     * @param charset is the charset of the labels.
+     * @param size is the size of the buffer in bytes.
+     * @throws IllegalArgumentException if the charset is null,
+     * or the buffer is smaller than 16 bytes.
+     */
+    private SolutionWriter(WritableByteChannel channel, OutputStream stream, Charset charset, int size)
+        throws IllegalArgumentException{
+        check(charset);
+        if(size < 16){
+            throw new IllegalArgumentException("The buffer has to be at least 16 bytes.");
+        }
+        this.channel = channel;
+        this.stream = stream;
+        this.buffer = ByteBuffer.allocateDirect(size);
+        //a char that cannot be encoded is written as '?', the same as System.out
+        this.encoder = charset.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.ascii = charset.equals(StandardCharsets.UTF_8) || charset.equals(StandardCharsets.US_ASCII)
+            || charset.equals(StandardCharsets.ISO_8859_1);
+        this.lineSeparator = System.lineSeparator().getBytes(charset);
+    }
+
+    /**
+     * It writes one path: the labels of the nodes separated by a space, and a line break.
+     * @param steps is the nodes of the path.
+     * @param length is the number of nodes in the path.
+     * @throws IOException if the channel cannot be written.
+     */
+    void writePath(BSTMountain.Node[] steps, int length) throws IOException{
+        for(int i = 0; i < length; i++){
+            if(i > 0){
+                put((byte) ' ');
+            }
+            RestStop stop = steps[i].data;
+            if(stop.getLabelId() < 0){
+                write(stop.getLabel());
+            }
+            else{
+                //a label in a dictionary is copied without making a String
+                label.setLength(0);
+                stop.appendLabel(label);
+                write(label);
+            }
+        }
+        newLine();
+    }
+
+    /**
+     * It writes a line of text and a line break.
+     * @param line is the text.
+     * @throws IOException if the channel cannot be written.
+     * @throws IllegalArgumentException if the text is null.
+     */
+    public void writeLine(CharSequence line) throws IOException, IllegalArgumentException{
+        check(line);
+        write(line);
+        newLine();
+    }
+
+    /**
+     * It writes a line break, the same as System.out.println.
+     * @throws IOException if the channel cannot be written.
+     */
+    public void newLine() throws IOException{
+        for(byte b : lineSeparator){
+            put(b);
+        }
+        lines ++;
+    }
+
+    /**
+     * It encodes the text into the buffer.
+     * ASCII text is copied byte by byte, the rest goes through the encoder.
+     * @param text is the text.
+     * @throws IOException if the channel cannot be written.
+     */
+    private void write(CharSequence text) throws IOException{
+        int length = text.length();
+        int i = 0;
+        if(ascii){
+            while(i < length){
+                char c = text.charAt(i);
+                if(c >= 0x80){
+                    break;
+                }
+                put((byte) c);
+                i ++;
+            }
+            if(i == length){
+                return;
+            }
+        }
+
+        //the rest of the text has chars that are not ASCII
+        CharBuffer chars = CharBuffer.wrap(text, i, length);
+        encoder.reset();
+        while(true){
+            CoderResult result = encoder.encode(chars, buffer, true);
+            if(result.isOverflow()){
+                drain();
+                continue;
+            }
+            break;
+        }
+        while(encoder.flush(buffer).isOverflow()){
+            drain();
+        }
+    }
+
+    /**
+     * It puts a byte into the buffer, writing the buffer out if it is full.
+     * @param b is the byte.
+     * @throws IOException if the channel cannot be written.
+     */
+    private void put(byte b) throws IOException{
+        if(!buffer.hasRemaining()){
+            drain();
+        }
+        buffer.put(b);
+    }
+
+    /**
+     * It writes everything in the buffer to the channel and empties the buffer.
+     * @throws IOException if the channel cannot be written.
+     */
+    private void drain() throws IOException{
+        buffer.flip();
+        while(buffer.hasRemaining()){
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * It writes everything in the buffer to the channel.
+     * If the writer was given a stream, the stream is flushed too.
+     * @throws IOException if the channel cannot be written.
+     */
+    @Override
+    public void flush() throws IOException{
+        drain();
+        if(stream != null){
+            stream.flush();
+        }
+    }
+
+    /**
+     * It flushes the writer and closes the channel.
+     * @throws IOException if the channel cannot be written or closed.
+     */
+    @Override
+    public void close() throws IOException{
+        try{
+            drain();
+        }
+        finally{
+            channel.close();
+        }
+    }
+
+    /**
+     * Getter for the number of lines written.
+     * @return the number of lines.
+     */
+    public long getLines(){
+        return lines;
+    }
+
+    /**
+     * This function checks if the given object is null.
+     * @param other is the object to be checked.
+     * @return the object.
+     * @throws IllegalArgumentException if the object is null.
+     */
+    private static <T> T check(T other) throws IllegalArgumentException{
+        if(other == null){
+            throw new IllegalArgumentException();
+        }
+        return other;
+    }
+}
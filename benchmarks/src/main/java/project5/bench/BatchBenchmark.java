@@ -0,0 +1,71 @@
+package project5.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import project5.BSTMountain;
+
+/**
+ * Counting the paths of many starting loadouts: one traversal per hiker
+ * against one batch traversal that carries every hiker at once.
+ * The baseline is the usual single-hiker search, with no cache on the mountain.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BatchBenchmark {
+
+    @Param({"100000"})
+    int size;
+
+    @Param({"100", "1000"})
+    int hikers;
+
+    BSTMountain mountain;
+    int[] food;
+    int[] raft;
+    int[] axe;
+
+    @Setup
+    public void setUp() {
+        mountain = Mountains.mountain(size, "balanced");
+        Random random = new Random(7);
+        food = new int[hikers];
+        raft = new int[hikers];
+        axe = new int[hikers];
+        for (int i = 0; i < hikers; i++) {
+            food[i] = random.nextInt(4);
+            raft[i] = random.nextInt(3);
+            axe[i] = random.nextInt(3);
+        }
+    }
+
+    @Benchmark
+    public long[] oneByOne() {
+        long[] counts = new long[hikers];
+        for (int i = 0; i < hikers; i++) {
+            counts[i] = mountain.countPaths(food[i], raft[i], axe[i]);
+        }
+        return counts;
+    }
+
+    @Benchmark
+    public long[] batch() {
+        return mountain.countPaths(food, raft, axe);
+    }
+}
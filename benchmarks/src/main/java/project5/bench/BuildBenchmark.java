@@ -0,0 +1,109 @@
+package project5.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import project5.ArrayMountain;
+import project5.BSTMountain;
+import project5.LabelDictionary;
+import project5.RestStop;
+
+/**
+ * Building a mountain: one add at a time, with the rotations,
+ * on nodes and on the array backed store, against the bulk build. Sorted input makes add rotate the most.
+ * The dictionary case compares label ids instead of Strings.
+ * The batch cases build half of the stops at once and append the other half.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BuildBenchmark {
+
+    @Param({"1000", "100000"})
+    int size;
+
+    @Param({"random", "sorted"})
+    String order;
+
+    List<RestStop> stops;
+
+    List<RestStop> dictionaryStops;
+
+    @Setup
+    public void setUp() {
+        stops = Mountains.stops(size, order.equals("sorted"));
+        List<String> labels = new ArrayList<>(stops.size());
+        for (RestStop stop : stops) {
+            labels.add(stop.getLabel());
+        }
+        LabelDictionary dictionary = LabelDictionary.ofLabels(labels);
+        dictionaryStops = new ArrayList<>(stops.size());
+        for (String label : labels) {
+            dictionaryStops.add(new RestStop(dictionary, label));
+        }
+    }
+
+    @Benchmark
+    public BSTMountain add() {
+        BSTMountain mountain = new BSTMountain();
+        for (RestStop stop : stops) {
+            mountain.add(stop);
+        }
+        return mountain;
+    }
+
+    @Benchmark
+    public BSTMountain addDictionary() {
+        BSTMountain mountain = new BSTMountain();
+        for (RestStop stop : dictionaryStops) {
+            mountain.add(stop);
+        }
+        return mountain;
+    }
+
+    @Benchmark
+    public ArrayMountain addArrayMountain() {
+        ArrayMountain mountain = new ArrayMountain();
+        for (RestStop stop : stops) {
+            mountain.add(stop);
+        }
+        return mountain;
+    }
+
+    @Benchmark
+    public BSTMountain appendAdd() {
+        BSTMountain mountain = BSTMountain.buildFrom(stops.subList(0, size / 2));
+        for (RestStop stop : stops.subList(size / 2, size)) {
+            mountain.add(stop);
+        }
+        return mountain;
+    }
+
+    @Benchmark
+    public BSTMountain appendAddAll() {
+        BSTMountain mountain = BSTMountain.buildFrom(stops.subList(0, size / 2));
+        mountain.addAll(stops.subList(size / 2, size));
+        return mountain;
+    }
+
+    @Benchmark
+    public BSTMountain buildFrom() {
+        return BSTMountain.buildFrom(stops);
+    }
+}
@@ -0,0 +1,158 @@
+package project5.bench;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import project5.ArrayMountain;
+import project5.BSTMountain;
+import project5.ResultCache;
+import project5.SolutionWriter;
+
+/**
+ * Going down the mountain. A "balanced" mountain is bulk built,
+ * so almost every node can go both ways and the search is wide.
+ * An "inserted" mountain is built by random adds and has cliffs,
+ * so the search follows fewer, deeper branches.
+ * The cached cases repeat the same query on an unchanged mountain.
+ * The written cases print every path to a stream that drops the bytes,
+ * one println per path against the buffered SolutionWriter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GoDownBenchmark {
+
+    @Param({"1000", "100000"})
+    int size;
+
+    @Param({"balanced", "inserted"})
+    String shape;
+
+    BSTMountain mountain;
+
+    BSTMountain cached;
+
+    /**
+     * goDown keeps every path it finds, so the goDown benchmarks get a new mountain
+     * for every invocation. The rebuild is kept in its own state,
+     * so the read-only benchmarks below do not pay for it.
+     */
+    @State(Scope.Thread)
+    public static class FreshMountain {
+
+        BSTMountain mountain;
+
+        @Setup(Level.Invocation)
+        public void setUp(GoDownBenchmark benchmark) {
+            mountain = Mountains.mountain(benchmark.size, benchmark.shape);
+        }
+    }
+
+    /** The same as FreshMountain, for the array-backed mountain. */
+    @State(Scope.Thread)
+    public static class FreshArray {
+
+        ArrayMountain mountain;
+
+        @Setup(Level.Invocation)
+        public void setUp(GoDownBenchmark benchmark) {
+            mountain = Mountains.arrayMountain(benchmark.size, benchmark.shape);
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        mountain = Mountains.mountain(size, shape);
+        cached = Mountains.mountain(size, shape);
+        cached.setCache(new ResultCache(64L << 20));
+    }
+
+    @Benchmark
+    public BSTMountain goDown(FreshMountain fresh) {
+        fresh.mountain.goDown();
+        return fresh.mountain;
+    }
+
+    @Benchmark
+    public BSTMountain goDownParallel(FreshMountain fresh) {
+        fresh.mountain.goDownParallel();
+        return fresh.mountain;
+    }
+
+    @Benchmark
+    public ArrayMountain goDownArray(FreshArray fresh) {
+        fresh.mountain.goDown();
+        return fresh.mountain;
+    }
+
+    @Benchmark
+    public long countPaths() {
+        return mountain.countPaths();
+    }
+
+    @Benchmark
+    public long countPathsCached() {
+        return cached.countPaths();
+    }
+
+    @Benchmark
+    public List<String> firstTenCached() {
+        return cached.goDown(10);
+    }
+
+    @Benchmark
+    public List<String> firstTen() {
+        return mountain.goDown(10);
+    }
+
+    @Benchmark
+    public boolean hasPath() {
+        return mountain.hasPath();
+    }
+
+    @Benchmark
+    public void solutions(Blackhole blackhole) {
+        Iterator<String> paths = mountain.solutions();
+        while (paths.hasNext()) {
+            blackhole.consume(paths.next());
+        }
+    }
+
+    @Benchmark
+    public long writeStreamed() throws IOException {
+        SolutionWriter out = new SolutionWriter(OutputStream.nullOutputStream());
+        long count = mountain.goDown(out);
+        out.flush();
+        return count;
+    }
+
+    @Benchmark
+    public void writePrintln() {
+        PrintStream out = new PrintStream(OutputStream.nullOutputStream(), true);
+        Iterator<String> paths = mountain.solutions();
+        while (paths.hasNext()) {
+            out.println(paths.next());
+        }
+    }
+}
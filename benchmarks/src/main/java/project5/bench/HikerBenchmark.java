@@ -0,0 +1,59 @@
+package project5.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import project5.Hiker;
+import project5.RestStop;
+
+/**
+ * The supply operations a hiker does at every reststop of a search.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HikerBenchmark {
+
+    Hiker hiker;
+    RestStop stop;
+
+    @Setup
+    public void setUp() {
+        hiker = new Hiker();
+        stop = new RestStop("stop");
+        stop.setFood(1);
+        stop.setRaft(1);
+        stop.setAxe(1);
+        stop.setRiver(1);
+        stop.setFallenTree(1);
+    }
+
+    @Benchmark
+    public boolean visitStop() {
+        int checkpoint = hiker.checkpoint();
+        hiker.getSupplies(stop);
+        boolean passed = hiker.passFallenTree(stop.getFallenTree()) && hiker.passRiver(stop.getRiver());
+        hiker.eat();
+        hiker.rollback(checkpoint);
+        return passed;
+    }
+
+    @Benchmark
+    public int setSupplies() {
+        hiker.setSupplies(3, 2, 1);
+        return hiker.getFood() + hiker.getRaft() + hiker.getAxe();
+    }
+}
@@ -0,0 +1,133 @@
+package project5.bench;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import project5.ArrayMountain;
+import project5.BSTMountain;
+import project5.RestStop;
+
+/**
+ * Mountains makes the inputs of the benchmarks.
+ * The same size and seed always give the same mountain.
+ */
+final class Mountains {
+
+    private static final long SEED = 42;
+
+    private Mountains() {
+    }
+
+    /**
+     * Makes the reststops of a mountain with unique labels.
+     * Every stop has food, so most paths are only stopped by obstacles.
+     * @param size the number of reststops
+     * @param sorted true to give the stops in label order, false for random order
+     * @return the reststops
+     */
+    static List<RestStop> stops(int size, boolean sorted) {
+        Random random = new Random(SEED);
+        List<RestStop> stops = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            stops.add(stop(label(i), random));
+        }
+        if (!sorted) {
+            Collections.shuffle(stops, random);
+        }
+        return stops;
+    }
+
+    /**
+     * Builds a mountain of the given shape.
+     * @param size the number of reststops
+     * @param shape "balanced" for a bulk built tree, "inserted" for random inserts
+     * @return the mountain
+     */
+    static BSTMountain mountain(int size, String shape) {
+        if (shape.equals("balanced")) {
+            return BSTMountain.buildFromSorted(stops(size, true));
+        }
+        BSTMountain mountain = new BSTMountain();
+        for (RestStop stop : stops(size, false)) {
+            mountain.add(stop);
+        }
+        return mountain;
+    }
+
+    /**
+     * Builds an array backed mountain by adding the stops one at a time.
+     * A "balanced" one gets the stops in label order.
+     * @param size the number of reststops
+     * @param shape "balanced" or "inserted"
+     * @return the mountain
+     */
+    static ArrayMountain arrayMountain(int size, String shape) {
+        ArrayMountain mountain = new ArrayMountain();
+        for (RestStop stop : stops(size, shape.equals("balanced"))) {
+            mountain.add(stop);
+        }
+        return mountain;
+    }
+
+    /**
+     * Writes an input file in the format read by MountainHike.
+     * @param size the number of lines
+     * @return the path of the temporary file, deleted on exit
+     * @throws IOException if the file cannot be written
+     */
+    static Path inputFile(int size) throws IOException {
+        Random random = new Random(SEED);
+        Path file = Files.createTempFile("mountain", ".txt");
+        file.toFile().deleteOnExit();
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < size; i++) {
+                out.write(label(random.nextInt(size * 2)));
+                out.write(" food");
+                if (random.nextInt(3) == 0) {
+                    out.write(" raft");
+                }
+                if (random.nextInt(3) == 0) {
+                    out.write(" axe");
+                }
+                if (random.nextInt(5) == 0) {
+                    out.write(" river");
+                }
+                if (random.nextInt(6) == 0) {
+                    out.write(" fallen tree");
+                }
+                out.write('\n');
+            }
+        }
+        return file;
+    }
+
+    /** The labels are padded, so their order is the order of the numbers. */
+    private static String label(int i) {
+        return String.format("stop%09d", i);
+    }
+
+    private static RestStop stop(String label, Random random) {
+        RestStop stop = new RestStop(label);
+        stop.setFood(1);
+        if (random.nextInt(3) == 0) {
+            stop.setRaft(1);
+        }
+        if (random.nextInt(4) == 0) {
+            stop.setAxe(1);
+        }
+        if (random.nextInt(6) == 0) {
+            stop.setRiver(1);
+        }
+        if (random.nextInt(8) == 0) {
+            stop.setFallenTree(1);
+        }
+        return stop;
+    }
+}
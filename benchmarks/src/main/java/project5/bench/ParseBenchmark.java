@@ -0,0 +1,74 @@
+package project5.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import project5.BSTMountain;
+import project5.MountainParser;
+
+/**
+ * Reading an input file into reststops, on one thread and on every core,
+ * and a cold start: building the mountain from the text against loading it saved.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParseBenchmark {
+
+    @Param({"10000", "1000000"})
+    int lines;
+
+    File input;
+
+    File saved;
+
+    @Setup
+    public void setUp() throws IOException {
+        input = Mountains.inputFile(lines).toFile();
+        saved = Files.createTempFile("mountain", ".bin").toFile();
+        saved.deleteOnExit();
+        BSTMountain mountain = new BSTMountain();
+        MountainParser.parse(input, mountain::add);
+        mountain.save(saved);
+    }
+
+    @Benchmark
+    public int parse(Blackhole blackhole) throws IOException {
+        return MountainParser.parse(input, blackhole::consume);
+    }
+
+    @Benchmark
+    public int parseParallel(Blackhole blackhole) throws IOException {
+        return MountainParser.parseParallel(input, Runtime.getRuntime().availableProcessors(), blackhole::consume);
+    }
+
+    @Benchmark
+    public BSTMountain parseAndAdd() throws IOException {
+        BSTMountain mountain = new BSTMountain();
+        MountainParser.parse(input, mountain::add);
+        return mountain;
+    }
+
+    @Benchmark
+    public BSTMountain load() throws IOException {
+        return BSTMountain.load(saved);
+    }
+}
@@ -0,0 +1,117 @@
+package project5;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for ArrayMountain.
+ * Adding the same reststops in the same order has to give the same tree,
+ * and the same paths, as BSTMountain.
+ *
+ * @author Oyujin Ulziibaatar
+ */
+class ArrayMountainTest {
+
+    /**
+     * It checks that the subtree of the array mountain is ordered and balanced,
+     * and that every node has the right height.
+     * @param mountain is the mountain.
+     * @param node is the index of the root of the subtree, -1 if it is empty.
+     * @param low is the reststop every label has to be bigger than, null if there is none.
+     * @param high is the reststop every label has to be smaller than, null if there is none.
+     * @return the height of the subtree, -1 if it is empty.
+     */
+    private static int check(ArrayMountain mountain, int node, RestStop low, RestStop high){
+        if(node < 0){
+            return -1;
+        }
+        RestStop data = mountain.data[node];
+        assertTrue(low == null || low.compareTo(data) < 0, "order of " + data.getLabel());
+        assertTrue(high == null || data.compareTo(high) < 0, "order of " + data.getLabel());
+        int left = check(mountain, mountain.left[node], low, data);
+        int right = check(mountain, mountain.right[node], data, high);
+        assertTrue(Math.abs(left - right) <= 1, "balance of " + data.getLabel());
+        assertEquals(Math.max(left, right) + 1, mountain.height[node], "height of " + data.getLabel());
+        return mountain.height[node];
+    }
+
+    /**
+     * It checks that the subtrees of both mountains have the same shape,
+     * the same reststops and the same heights.
+     * @param expected is the root of the subtree of the BSTMountain.
+     * @param mountain is the array mountain.
+     * @param node is the index of the root of the subtree of the array mountain.
+     */
+    private static void sameTree(BSTMountain.Node expected, ArrayMountain mountain, int node){
+        if(expected == null){
+            assertEquals(-1, node);
+            return;
+        }
+        assertTrue(node >= 0, "missing " + expected.data.getLabel());
+        assertEquals(TestMountains.describe(expected.data), TestMountains.describe(mountain.data[node]));
+        assertEquals(expected.height, mountain.height[node], "height of " + expected.data.getLabel());
+        sameTree(expected.left, mountain, mountain.left[node]);
+        sameTree(expected.right, mountain, mountain.right[node]);
+    }
+
+    @Test
+    void sameAsBSTMountain(){
+        Random random = new Random(12);
+        for(int round = 0; round < 60; round++){
+            int count = random.nextInt(1500);
+            BSTMountain expected = new BSTMountain();
+            ArrayMountain mountain = new ArrayMountain();
+            for(int i = 0; i < count; i++){
+                //the labels repeat, so some reststops are not added
+                String label = String.format("%05d", random.nextInt(2 * count + 1));
+                RestStop stop = TestMountains.randomStop(random, label);
+                expected.add(stop);
+                mountain.add(stop);
+            }
+            assertEquals(expected.size(), mountain.size());
+            check(mountain, mountain.root, null, null);
+            sameTree(expected.snapshot().root(), mountain, mountain.root);
+
+            mountain.goDown();
+            assertEquals(expected.goDown(Integer.MAX_VALUE), mountain.getSolution(), "round " + round);
+        }
+    }
+
+    @Test
+    void sortedStopsRotate(){
+        //adding in order only rotates one way, in reverse order the other way
+        List<RestStop> stops = new ArrayList<>();
+        for(int i = 0; i < 1000; i++){
+            stops.add(TestMountains.stop(new RestStop(String.format("%05d", i)), 1, 0, 0, 0, 0));
+        }
+        ArrayMountain up = new ArrayMountain();
+        ArrayMountain down = new ArrayMountain();
+        BSTMountain expectedUp = new BSTMountain();
+        BSTMountain expectedDown = new BSTMountain();
+        for(int i = 0; i < stops.size(); i++){
+            up.add(stops.get(i));
+            expectedUp.add(stops.get(i));
+            down.add(stops.get(stops.size() - 1 - i));
+            expectedDown.add(stops.get(stops.size() - 1 - i));
+        }
+        assertEquals(9, check(up, up.root, null, null));
+        check(down, down.root, null, null);
+        sameTree(expectedUp.snapshot().root(), up, up.root);
+        sameTree(expectedDown.snapshot().root(), down, down.root);
+    }
+
+    @Test
+    void emptyAndNull(){
+        ArrayMountain mountain = new ArrayMountain();
+        mountain.goDown();
+        assertTrue(mountain.getSolution().isEmpty());
+        assertEquals(0, mountain.size());
+        assertThrows(IllegalArgumentException.class, () -> mountain.add(null));
+    }
+}
@@ -0,0 +1,537 @@
+package project5;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for BSTMountain.
+ * addAll has to leave the same reststops in the mountain as calling add
+ * for every reststop in order, even if the shape of the tree is different.
+ *
+ * @author Oyujin Ulziibaatar
+ */
+class BSTMountainTest {
+
+    /**
+     * It makes a reststop whose supplies come from a number, such as the number of its batch,
+     * so it can be seen which of two reststops with the same label was kept.
+     * @param label is the label.
+     * @param kind is the number the supplies come from.
+     * @return the reststop.
+     */
+    private static RestStop stop(String label, int kind){
+        return TestMountains.stop(new RestStop(label), kind, kind % 2, 0, kind % 3 == 0 ? 1 : 0, 0);
+    }
+
+    /**
+     * It makes reststops for the labels from one number to another.
+     * @param from is the first number.
+     * @param to is the last number.
+     * @param step is the difference between two numbers.
+     * @param batch is the number of the batch.
+     * @return the reststops.
+     */
+    private static List<RestStop> range(int from, int to, int step, int batch){
+        List<RestStop> stops = new ArrayList<>();
+        for(int i = from; i <= to; i += step){
+            stops.add(stop(String.format("%05d", i), batch));
+        }
+        return stops;
+    }
+
+    /**
+     * It adds the batches one reststop at a time to one mountain,
+     * and one batch at a time with addAll to another,
+     * and checks that both mountains have the same reststops.
+     * @param batches is the batches, in order.
+     */
+    private static void sameAsAdd(List<List<RestStop>> batches){
+        BSTMountain added = new BSTMountain();
+        BSTMountain merged = new BSTMountain();
+        for(List<RestStop> batch : batches){
+            int before = added.size();
+            for(RestStop stop : batch){
+                added.add(stop);
+            }
+            assertEquals(added.size() - before, merged.addAll(batch), "number added");
+            assertEquals(TestMountains.contents(added), TestMountains.contents(merged));
+        }
+    }
+
+    @Test
+    void addAllToEmpty(){
+        List<RestStop> batch = range(0, 999, 1, 1);
+        Collections.shuffle(batch, new Random(3));
+        sameAsAdd(Arrays.asList(batch));
+    }
+
+    @Test
+    void addAllWithDuplicatesInTheBatch(){
+        List<RestStop> batch = new ArrayList<>();
+        batch.addAll(range(0, 100, 1, 1));
+        batch.addAll(range(0, 100, 2, 2));
+        batch.addAll(range(50, 150, 3, 3));
+        Collections.shuffle(batch, new Random(4));
+        sameAsAdd(Arrays.asList(batch));
+    }
+
+    @Test
+    void addAllOverlappingRanges(){
+        sameAsAdd(Arrays.asList(
+            range(0, 400, 2, 1),
+            range(200, 600, 1, 2),
+            range(100, 300, 5, 3),
+            range(900, 1000, 1, 4),
+            range(0, 1000, 7, 5),
+            range(601, 899, 1, 6)));
+    }
+
+    @Test
+    void addAllEmptyBatches(){
+        BSTMountain mountain = new BSTMountain();
+        assertEquals(0, mountain.addAll(new ArrayList<>()));
+        assertEquals(0, mountain.size());
+        assertEquals(0, mountain.getRevision());
+
+        mountain.addAll(range(0, 50, 1, 1));
+        long revision = mountain.getRevision();
+        List<String> contents = TestMountains.contents(mountain);
+        assertEquals(0, mountain.addAll(new ArrayList<>()));
+        //a batch that is already in the mountain adds nothing
+        assertEquals(0, mountain.addAll(range(0, 50, 5, 2)));
+        assertEquals(contents, TestMountains.contents(mountain));
+        assertEquals(revision, mountain.getRevision());
+
+        sameAsAdd(Arrays.asList(new ArrayList<>(), range(0, 10, 1, 1), new ArrayList<>(), range(0, 10, 1, 2)));
+    }
+
+    @Test
+    void addAllRandomBatches(){
+        Random random = new Random(11);
+        for(int round = 0; round < 20; round++){
+            List<List<RestStop>> batches = new ArrayList<>();
+            for(int b = 0; b < 6; b++){
+                List<RestStop> batch = new ArrayList<>();
+                int count = random.nextInt(200);
+                for(int i = 0; i < count; i++){
+                    batch.add(stop(String.valueOf(random.nextInt(500)), random.nextInt(6)));
+                }
+                batches.add(batch);
+            }
+            sameAsAdd(batches);
+        }
+    }
+
+    @Test
+    void addAllKeepsSnapshot(){
+        BSTMountain mountain = new BSTMountain();
+        mountain.addAll(range(0, 100, 2, 1));
+        List<String> before = TestMountains.contents(mountain);
+        MountainSnapshot snapshot = mountain.snapshot();
+        mountain.addAll(range(0, 100, 1, 2));
+
+        List<String> seen = new ArrayList<>();
+        collect(snapshot.root(), seen);
+        assertEquals(before, seen);
+    }
+
+    /**
+     * It adds the reststops of the subtree to the list in order.
+     * @param node is the root of the subtree.
+     * @param stops is the list.
+     */
+    private static void collect(BSTMountain.Node node, List<String> stops){
+        if(node != null){
+            collect(node.left, stops);
+            stops.add(TestMountains.describe(node.data));
+            collect(node.right, stops);
+        }
+    }
+
+    @Test
+    void addAllNull(){
+        BSTMountain mountain = new BSTMountain();
+        assertThrows(IllegalArgumentException.class, () -> mountain.addAll(null));
+        assertThrows(IllegalArgumentException.class,
+            () -> mountain.addAll(Arrays.asList(stop("a", 1), null)));
+        assertEquals(0, mountain.size());
+    }
+
+    @Test
+    void goDownIsTheRecursiveSearch(){
+        Random random = new Random(3);
+        int cliffs = 0;
+        int found = 0;
+        for(int round = 0; round < 200; round++){
+            BSTMountain mountain = TestMountains.random(random, 1 + random.nextInt(400));
+            BSTMountain.Node root = mountain.snapshot().root();
+            cliffs += TestMountains.cliffs(root);
+            List<String> expected = TestMountains.reference(root, 0, 0, 0);
+            found += expected.size();
+
+            mountain.goDown();
+            assertEquals(expected, mountain.getSolution(), "round " + round);
+            //the same search with supplies to start with
+            assertEquals(TestMountains.reference(root, 1, 1, 1), mountain.goDown(1, 1, 1, Integer.MAX_VALUE));
+        }
+        //the trees did have cliffs, and paths were found
+        assertTrue(cliffs > 0);
+        assertTrue(found > 0);
+    }
+
+    @Test
+    void goDownOfSmallMountains(){
+        BSTMountain mountain = new BSTMountain();
+        mountain.goDown();
+        assertTrue(mountain.getSolution().isEmpty());
+
+        //a single reststop is the end of the mountain, no food is needed
+        mountain.add(new RestStop("a"));
+        mountain.goDown();
+        assertEquals(Arrays.asList("a"), mountain.getSolution());
+
+        //the hiker runs out of food at the root
+        mountain = new BSTMountain();
+        mountain.addAll(Arrays.asList(new RestStop("a"), new RestStop("b"), new RestStop("c")));
+        mountain.goDown();
+        assertTrue(mountain.getSolution().isEmpty());
+
+        //a river at the root needs a raft, and the food is enough for one level
+        mountain = new BSTMountain();
+        mountain.addAll(Arrays.asList(new RestStop("a"), TestMountains.stop(new RestStop("b"), 1, 1, 0, 1, 0),
+            TestMountains.stop(new RestStop("c"), 0, 0, 0, 0, 1)));
+        mountain.goDown();
+        assertEquals(Arrays.asList("b a"), mountain.getSolution());
+    }
+
+    /**
+     * This class is a reststop that counts how many times the hikers take its food,
+     * which is once for every time a search visits its node.
+     */
+    private static final class CountedStop extends RestStop {
+
+        private final int[] visits;
+
+        /**
+         * Constructor for a counted reststop with one food.
+         * @param label is the label.
+         * @param visits is the counter shared by the reststops of a mountain.
+         */
+        CountedStop(String label, int[] visits){
+            super(label);
+            this.visits = visits;
+            setFood(1);
+        }
+
+        @Override
+        public int getFood(){
+            visits[0] ++;
+            return super.getFood();
+        }
+    }
+
+    @Test
+    void solutionsAreGoDown(){
+        Random random = new Random(15);
+        for(int round = 0; round < 50; round++){
+            BSTMountain mountain = TestMountains.random(random, random.nextInt(500));
+            List<String> expected = mountain.goDown(Integer.MAX_VALUE);
+            List<String> paths = new ArrayList<>();
+            mountain.solutions().forEachRemaining(paths::add);
+            assertEquals(expected, paths);
+            assertEquals(expected, mountain.solutionStream().collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    void solutionsArePartlyConsumed(){
+        BSTMountain mountain = TestMountains.full(8);
+        List<String> expected = mountain.goDown(Integer.MAX_VALUE);
+        assertEquals(128, expected.size());
+
+        Iterator<String> paths = mountain.solutions();
+        List<String> seen = new ArrayList<>();
+        for(int i = 0; i < 5; i++){
+            //asking again does not skip a path
+            assertTrue(paths.hasNext());
+            assertTrue(paths.hasNext());
+            seen.add(paths.next());
+        }
+        assertEquals(expected.subList(0, 5), seen);
+
+        //a second iterator has its own search
+        assertEquals(expected.get(0), mountain.solutions().next());
+
+        while(paths.hasNext()){
+            seen.add(paths.next());
+        }
+        assertEquals(expected, seen);
+        assertFalse(paths.hasNext());
+        assertFalse(paths.hasNext());
+        assertThrows(NoSuchElementException.class, paths::next);
+        assertFalse(new BSTMountain().solutions().hasNext());
+    }
+
+    @Test
+    void solutionsAreLazy(){
+        int[] visits = new int[1];
+        List<RestStop> stops = new ArrayList<>();
+        for(int i = 0; i < (1 << 14) - 1; i++){
+            stops.add(new CountedStop(String.format("%05d", i), visits));
+        }
+        BSTMountain mountain = BSTMountain.buildFromSorted(stops);
+        List<String> first = mountain.goDown(3);
+        mountain.goDown(Integer.MAX_VALUE);
+        assertTrue(visits[0] >= stops.size(), "the whole search visits every reststop");
+
+        //three paths of 14 reststops share their first ones, so few reststops are visited
+        visits[0] = 0;
+        assertEquals(first, mountain.solutionStream().limit(3).collect(Collectors.toList()));
+        assertTrue(visits[0] < 50, visits[0] + " reststops visited");
+
+        visits[0] = 0;
+        BSTMountain.SolutionIterator paths = (BSTMountain.SolutionIterator) mountain.solutions();
+        for(int i = 0; i < 3; i++){
+            paths.next();
+        }
+        assertTrue(paths.paths.visited() < 50, paths.paths.visited() + " nodes visited");
+        assertEquals(paths.paths.visited(), visits[0]);
+    }
+
+    /**
+     * It finds a node with two children in the subtree, the one closest to the root.
+     * @param node is the root of the subtree.
+     * @return the node, or null if no node has two children.
+     */
+    private static BSTMountain.Node twoChildren(BSTMountain.Node node){
+        if(node == null || (node.left != null && node.right != null)){
+            return node;
+        }
+        return twoChildren(node.left != null ? node.left : node.right);
+    }
+
+    /**
+     * It makes a copy of a reststop with some of its food, river and fallen tree flipped.
+     * @param random is the random numbers.
+     * @param old is the reststop.
+     * @return the new reststop with the same label.
+     */
+    private static RestStop flip(Random random, RestStop old){
+        int change = 1 + random.nextInt(7);
+        return TestMountains.stop(new RestStop(old.getLabel()),
+            (change & 1) != 0 ? (old.getFood() == 0 ? 1 : 0) : old.getFood(),
+            old.getRaft(), old.getAxe(),
+            (change & 2) != 0 ? (old.getRiver() == 0 ? 1 : 0) : old.getRiver(),
+            (change & 4) != 0 ? (old.getFallenTree() == 0 ? 1 : 0) : old.getFallenTree());
+    }
+
+    @Test
+    void randomChangesKeepResolveRight(){
+        Random random = new Random(13);
+        int rootsRemoved = 0;
+        int twoChildrenRemoved = 0;
+        int updates = 0;
+        for(int round = 0; round < 10; round++){
+            BSTMountain mountain = new BSTMountain();
+            TreeMap<String, RestStop> expected = new TreeMap<>();
+            MountainSnapshot snapshot = null;
+            List<String> snapshotContents = null;
+            for(int step = 0; step < 300; step++){
+                BSTMountain.Node root = mountain.root();
+                int kind = random.nextInt(10);
+                if(kind < 4 || expected.isEmpty()){
+                    RestStop stop = TestMountains.randomStop(random, String.format("%04d", random.nextInt(200)));
+                    mountain.add(stop);
+                    expected.putIfAbsent(stop.getLabel(), stop);
+                }
+                else if(kind < 7){
+                    //the root, a node with two children, or any reststop
+                    String label;
+                    if(kind == 4){
+                        label = root.data.getLabel();
+                        rootsRemoved ++;
+                    }
+                    else if(kind == 5 && twoChildren(root) != null){
+                        label = twoChildren(root).data.getLabel();
+                        twoChildrenRemoved ++;
+                    }
+                    else{
+                        label = String.format("%04d", random.nextInt(200));
+                    }
+                    assertEquals(expected.remove(label) != null, mountain.remove(label), "remove " + label);
+                }
+                else if(kind < 9){
+                    List<String> labels = new ArrayList<>(expected.keySet());
+                    RestStop stop = flip(random, expected.get(labels.get(random.nextInt(labels.size()))));
+                    assertTrue(mountain.update(stop));
+                    expected.put(stop.getLabel(), stop);
+                    updates ++;
+                }
+                else{
+                    //a snapshot taken now must not see the changes that follow
+                    snapshot = mountain.snapshot();
+                    snapshotContents = new ArrayList<>();
+                    collect(snapshot.root(), snapshotContents);
+                }
+
+                List<String> stops = new ArrayList<>();
+                for(RestStop stop : expected.values()){
+                    stops.add(TestMountains.describe(stop));
+                }
+                assertEquals(stops, TestMountains.contents(mountain), "step " + step);
+                List<String> paths = mountain.goDown(Integer.MAX_VALUE);
+                assertEquals(paths, mountain.resolve(), "step " + step);
+                assertEquals(TestMountains.reference(mountain.root(), 0, 0, 0), paths);
+            }
+            assertEquals(false, mountain.update(new RestStop("none")));
+            if(snapshot != null){
+                List<String> seen = new ArrayList<>();
+                collect(snapshot.root(), seen);
+                assertEquals(snapshotContents, seen);
+            }
+        }
+        assertTrue(rootsRemoved > 0 && twoChildrenRemoved > 0 && updates > 0);
+    }
+
+    /**
+     * It checks the needs of every node of the subtree: a hiker that has one less
+     * of any of them than the node needs finds no legal path below the node,
+     * even with plenty of everything else.
+     * @param node is the root of the subtree.
+     */
+    private static void needsAreSafe(BSTMountain.Node node){
+        if(node == null){
+            return;
+        }
+        int plenty = 1000;
+        String label = node.data.getLabel();
+        if(node.needFood > 0){
+            assertTrue(TestMountains.reference(node, node.needFood - 1, plenty, plenty).isEmpty(), "food of " + label);
+        }
+        if(node.needRaft > 0){
+            assertTrue(TestMountains.reference(node, plenty, node.needRaft - 1, plenty).isEmpty(), "raft of " + label);
+        }
+        if(node.needAxe > 0){
+            assertTrue(TestMountains.reference(node, plenty, plenty, node.needAxe - 1).isEmpty(), "axe of " + label);
+        }
+        needsAreSafe(node.left);
+        needsAreSafe(node.right);
+    }
+
+    /**
+     * It checks that the pruned search finds every path the unpruned one finds,
+     * for hikers that start with a few supplies, and that the needs are safe.
+     * @param mountain is the mountain.
+     */
+    private static void pruningKeepsEveryPath(BSTMountain mountain){
+        TestMountains.contents(mountain);
+        BSTMountain.Node root = mountain.root();
+        for(int food = 0; food < 3; food++){
+            for(int raft = 0; raft < 3; raft++){
+                for(int axe = 0; axe < 3; axe++){
+                    assertEquals(TestMountains.reference(root, food, raft, axe),
+                        mountain.goDown(food, raft, axe, Integer.MAX_VALUE), food + " " + raft + " " + axe);
+                    assertEquals(TestMountains.reference(root, food, raft, axe).size(),
+                        mountain.countPaths(food, raft, axe));
+                }
+            }
+        }
+        needsAreSafe(root);
+    }
+
+    @Test
+    void pruningNeverDropsAPath(){
+        Random random = new Random(14);
+        int pruned = 0;
+        for(int round = 0; round < 30; round++){
+            //single adds rotate on the way up
+            BSTMountain mountain = TestMountains.random(random, 1 + random.nextInt(300));
+            pruningKeepsEveryPath(mountain);
+
+            //addAll merges and rebuilds, and works the needs out again
+            List<RestStop> batch = new ArrayList<>();
+            for(int i = random.nextInt(200); i > 0; i--){
+                batch.add(TestMountains.randomStop(random, String.format("%05d", random.nextInt(700))));
+            }
+            mountain.addAll(batch);
+            pruningKeepsEveryPath(mountain);
+
+            //removes rotate on the other side, and updates change the needs of the way down
+            //after a snapshot the nodes that change are copied, with their needs
+            for(int i = 0; i < 40; i++){
+                if(i % 8 == 0){
+                    mountain.snapshot();
+                }
+                mountain.remove(String.format("%05d", random.nextInt(700)));
+                RestStop stop = TestMountains.randomStop(random, String.format("%05d", random.nextInt(700)));
+                mountain.update(stop);
+            }
+            pruningKeepsEveryPath(mountain);
+
+            MountainStats stats = new MountainStats();
+            mountain.setStats(stats);
+            mountain.goDown(Integer.MAX_VALUE);
+            pruned += stats.prunedFood + stats.prunedRiver + stats.prunedFallenTree;
+        }
+        //some hikers were turned back, so the checks above had something to skip
+        assertTrue(pruned > 0);
+    }
+
+    @Test
+    void countAndHasAreGoDown(){
+        Random random = new Random(15);
+        boolean some = false;
+        boolean none = false;
+        for(int round = 0; round < 100; round++){
+            BSTMountain mountain = TestMountains.random(random, random.nextInt(300));
+            mountain.goDown();
+            List<String> paths = mountain.getSolution();
+            assertEquals(paths.size(), mountain.countPaths());
+            assertEquals(!paths.isEmpty(), mountain.hasPath());
+            some |= !paths.isEmpty();
+            none |= paths.isEmpty();
+
+            List<String> supplied = mountain.goDown(1, 1, 0, Integer.MAX_VALUE);
+            assertEquals(supplied.size(), mountain.countPaths(1, 1, 0));
+        }
+        //both answers of hasPath were checked
+        assertTrue(some && none);
+        assertThrows(IllegalArgumentException.class, () -> new BSTMountain().countPaths(0, -1, 0));
+    }
+
+    @Test
+    void goDownLimitIsTheFirstPaths(){
+        Random random = new Random(16);
+        for(int round = 0; round < 50; round++){
+            BSTMountain mountain = TestMountains.random(random, random.nextInt(300));
+            List<String> all = mountain.goDown(Integer.MAX_VALUE);
+            mountain.goDown();
+            assertEquals(mountain.getSolution(), all);
+            int n = all.size();
+            for(int k : new int[]{0, 1, n, n + 1}){
+                assertEquals(all.subList(0, Math.min(k, n)), mountain.goDown(k), "limit " + k);
+            }
+            if(n > 2){
+                assertEquals(all.subList(0, n / 2), mountain.goDown(n / 2));
+            }
+        }
+        BSTMountain full = TestMountains.full(6);
+        assertEquals(32, full.goDown(Integer.MAX_VALUE).size());
+        assertEquals(full.goDown(Integer.MAX_VALUE).subList(0, 5), full.goDown(5));
+        assertThrows(IllegalArgumentException.class, () -> full.goDown(-1));
+        assertThrows(IllegalArgumentException.class, () -> full.goDown(0, 0, 0, -1));
+    }
+}
@@ -0,0 +1,111 @@
+package project5;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the batch search of BSTMountain.
+ * Every hiker of a batch has to get the same paths and the same count
+ * as the search of that hiker alone.
+ *
+ * @author Oyujin Ulziibaatar
+ */
+class BatchSearchTest {
+
+    /**
+     * It searches the mountain with a batch of hikers and checks every hiker
+     * against goDown and countPaths of that hiker alone.
+     * @param mountain is the mountain.
+     * @param food is the foods of the hikers.
+     * @param raft is the rafts of the hikers.
+     * @param axe is the axes of the hikers.
+     */
+    private static void sameAsOneByOne(BSTMountain mountain, int[] food, int[] raft, int[] axe){
+        List<List<String>> paths = mountain.goDown(food, raft, axe);
+        long[] counts = mountain.countPaths(food, raft, axe);
+        assertEquals(food.length, paths.size());
+        assertEquals(food.length, counts.length);
+        for(int i = 0; i < food.length; i++){
+            String hiker = "hiker " + i + " with " + food[i] + " " + raft[i] + " " + axe[i];
+            assertEquals(mountain.goDown(food[i], raft[i], axe[i], Integer.MAX_VALUE), paths.get(i), hiker);
+            assertEquals(mountain.countPaths(food[i], raft[i], axe[i]), counts[i], hiker);
+        }
+    }
+
+    @Test
+    void randomMountainsAndLoadouts(){
+        Random random = new Random(21);
+        int[] sizes = {0, 1, 2, 3, 10, 50, 300, 1000};
+        for(int size : sizes){
+            for(int round = 0; round < 5; round++){
+                BSTMountain mountain = TestMountains.random(random, size);
+                int hikers = random.nextInt(40);
+                int[] food = new int[hikers];
+                int[] raft = new int[hikers];
+                int[] axe = new int[hikers];
+                for(int i = 0; i < hikers; i++){
+                    //some hikers start the same as one before them
+                    int same = i > 0 && random.nextInt(3) == 0 ? random.nextInt(i) : -1;
+                    food[i] = same >= 0 ? food[same] : random.nextInt(4);
+                    raft[i] = same >= 0 ? raft[same] : random.nextInt(3);
+                    axe[i] = same >= 0 ? axe[same] : random.nextInt(3);
+                }
+                sameAsOneByOne(mountain, food, raft, axe);
+            }
+        }
+    }
+
+    @Test
+    void noHikers(){
+        BSTMountain mountain = TestMountains.random(new Random(3), 100);
+        assertTrue(mountain.goDown(new int[0], new int[0], new int[0]).isEmpty());
+        assertEquals(0, mountain.countPaths(new int[0], new int[0], new int[0]).length);
+    }
+
+    @Test
+    void everyHikerFailsAtTheRoot(){
+        //every reststop has a fallen tree and no axe, so no hiker without an axe passes the root
+        List<RestStop> stops = new ArrayList<>();
+        for(int i = 0; i < 63; i++){
+            stops.add(TestMountains.stop(new RestStop(String.format("%05d", i)), 1, 0, 0, 0, 1));
+        }
+        BSTMountain mountain = BSTMountain.buildFromSorted(stops);
+        int[] food = {0, 1, 5, 5, 2};
+        int[] raft = {0, 3, 0, 0, 1};
+        int[] axe = {0, 0, 0, 0, 0};
+        sameAsOneByOne(mountain, food, raft, axe);
+        for(long count : mountain.countPaths(food, raft, axe)){
+            assertEquals(0, count);
+        }
+
+        //with enough axes every hiker goes down
+        int[] axes = {6, 6, 6, 6, 6};
+        sameAsOneByOne(mountain, food, raft, axes);
+        for(long count : mountain.countPaths(food, raft, axes)){
+            assertEquals(32, count);
+        }
+    }
+
+    @Test
+    void sameLoadoutsGetTheirOwnLists(){
+        BSTMountain mountain = TestMountains.random(new Random(8), 200);
+        List<List<String>> paths = mountain.goDown(new int[]{2, 2}, new int[]{1, 1}, new int[]{1, 1});
+        assertEquals(paths.get(0), paths.get(1));
+        paths.get(0).add("changed");
+        assertEquals(mountain.goDown(2, 1, 1, Integer.MAX_VALUE), paths.get(1));
+    }
+
+    @Test
+    void badBatches(){
+        BSTMountain mountain = TestMountains.random(new Random(5), 10);
+        assertThrows(IllegalArgumentException.class, () -> mountain.countPaths(null, new int[0], new int[0]));
+        assertThrows(IllegalArgumentException.class, () -> mountain.countPaths(new int[1], new int[2], new int[1]));
+        assertThrows(IllegalArgumentException.class, () -> mountain.goDown(new int[]{1}, new int[]{-1}, new int[]{1}));
+    }
+}
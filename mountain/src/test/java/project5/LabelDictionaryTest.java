@@ -0,0 +1,139 @@
+package project5;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for LabelDictionary.
+ * The order of the ids has to be the order of String.compareTo,
+ * which compares UTF-16 characters, not code points or UTF-8 bytes.
+ *
+ * @author Oyujin Ulziibaatar
+ */
+class LabelDictionaryTest {
+
+    //labels that share long prefixes, and characters from every UTF-8 length,
+    //U+FF21 is bigger than the surrogates of U+1F600 in UTF-16, but smaller as a code point
+    private static final String[] LABELS = {
+        "", "a", "A", "ab", "abc", "abcd", "abcde", "abcdf", "abcdefgh", "abcdefgi",
+        "10", "9", "100", "zz", "\u00e9", "e\u0301", "\u00e9t\u00e9", "\u00e9t\u00e8",
+        "\u65e5\u672c", "\u65e5\u672c\u8a9e", "\uff21", "\ud83d\ude00", "\ud83d\ude01",
+        "a\ud83d\ude00", "a\uff21", "abcd\ud83d\ude00", "abcd\uff21", "\u0000", "\u007f", "\u0080"
+    };
+
+    /**
+     * It makes random labels from a small alphabet of characters of every UTF-8 length,
+     * so many of them share their first characters.
+     * @param count is the number of labels.
+     * @param seed is the seed of the random numbers.
+     * @return the labels, with duplicates.
+     */
+    private static List<String> randomLabels(int count, long seed){
+        String[] alphabet = {"a", "b", "\u00e9", "\u0800", "\uff21", "\ud83d\ude00", "\ud800\udc00"};
+        Random random = new Random(seed);
+        List<String> labels = new ArrayList<>(Arrays.asList(LABELS));
+        for(int i = 0; i < count; i++){
+            StringBuilder label = new StringBuilder();
+            int length = random.nextInt(9);
+            for(int j = 0; j < length; j++){
+                label.append(alphabet[random.nextInt(alphabet.length)]);
+            }
+            labels.add(label.toString());
+        }
+        return labels;
+    }
+
+    @Test
+    void compareIsStringOrder(){
+        List<String> labels = randomLabels(400, 17);
+        LabelDictionary dictionary = new LabelDictionary();
+        int[] ids = new int[labels.size()];
+        for(int i = 0; i < ids.length; i++){
+            ids[i] = dictionary.intern(labels.get(i));
+        }
+        for(int i = 0; i < ids.length; i++){
+            for(int j = 0; j < ids.length; j++){
+                int expected = Integer.signum(labels.get(i).compareTo(labels.get(j)));
+                assertEquals(expected, Integer.signum(dictionary.compare(ids[i], ids[j])),
+                    labels.get(i) + " and " + labels.get(j));
+            }
+        }
+    }
+
+    @Test
+    void orderedIdsAreStringOrder(){
+        List<String> labels = randomLabels(400, 23);
+        LabelDictionary dictionary = LabelDictionary.ofLabels(labels);
+        assertTrue(dictionary.isOrdered());
+        String[] sorted = labels.stream().distinct().sorted().toArray(String[]::new);
+        assertEquals(sorted.length, dictionary.size());
+        for(int id = 0; id < sorted.length; id++){
+            assertEquals(sorted[id], dictionary.label(id));
+            assertEquals(id, dictionary.intern(sorted[id]));
+        }
+        assertThrows(IllegalArgumentException.class, () -> dictionary.intern("not in the dictionary"));
+    }
+
+    @Test
+    void internKeepsOneIdPerLabel(){
+        LabelDictionary dictionary = new LabelDictionary();
+        for(String label : LABELS){
+            int id = dictionary.intern(label);
+            assertEquals(id, dictionary.intern(label));
+            assertEquals(label, dictionary.label(id));
+
+            //the same label read from bytes gets the same id
+            byte[] utf8 = ("  " + label + " ").getBytes(StandardCharsets.UTF_8);
+            assertEquals(id, dictionary.intern(ByteBuffer.wrap(utf8), 2, utf8.length - 1));
+
+            StringBuilder builder = new StringBuilder("x");
+            dictionary.appendLabel(id, builder);
+            assertEquals("x" + label, builder.toString());
+        }
+        assertEquals(LABELS.length, dictionary.size());
+        assertFalse(dictionary.isOrdered());
+        assertThrows(IllegalArgumentException.class, () -> dictionary.label(LABELS.length));
+        assertThrows(IllegalArgumentException.class, () -> dictionary.intern(null));
+    }
+
+    @Test
+    void restStopsCompareLikeStrings(){
+        LabelDictionary dictionary = new LabelDictionary();
+        for(String a : LABELS){
+            for(String b : LABELS){
+                int expected = Integer.signum(new RestStop(a).compareTo(new RestStop(b)));
+                RestStop x = new RestStop(dictionary, a);
+                RestStop y = new RestStop(dictionary, b);
+                assertEquals(expected, Integer.signum(x.compareTo(y)), a + " and " + b);
+                //a reststop with a dictionary and one without are compared by their labels
+                assertEquals(expected, Integer.signum(x.compareTo(new RestStop(b))), a + " and " + b);
+            }
+        }
+    }
+
+    @Test
+    void mountainWithDictionaryHasSamePaths(){
+        List<String> labels = randomLabels(300, 5);
+        Random random = new Random(9);
+        BSTMountain plain = new BSTMountain();
+        BSTMountain encoded = new BSTMountain();
+        LabelDictionary dictionary = new LabelDictionary();
+        for(String label : labels){
+            int food = random.nextInt(3);
+            plain.add(TestMountains.stop(new RestStop(label), food, 0, 0, 0, 0));
+            encoded.add(TestMountains.stop(new RestStop(dictionary, label), food, 0, 0, 0, 0));
+        }
+        assertEquals(TestMountains.contents(plain), TestMountains.contents(encoded));
+        assertEquals(plain.goDown(1000), encoded.goDown(1000));
+    }
+}
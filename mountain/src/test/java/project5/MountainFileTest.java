@@ -0,0 +1,161 @@
+package project5;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests for saving and loading a mountain with MountainFile.
+ * A loaded mountain has to give the same paths as the saved one,
+ * and a damaged or edited file must not load as a broken tree.
+ *
+ * @author Oyujin Ulziibaatar
+ */
+class MountainFileTest {
+
+    //where the number of nodes is in the header
+    private static final int COUNT = 8;
+
+    @TempDir
+    File dir;
+
+    /**
+     * It builds a mountain from random reststops.
+     * @param count is the number of reststops added, with duplicates.
+     * @param seed is the seed of the random numbers.
+     * @param dictionary is the dictionary of the labels, null to keep the labels as Strings.
+     * @return the mountain.
+     */
+    private static BSTMountain random(int count, long seed, LabelDictionary dictionary){
+        String[] alphabet = {"a", "b", "z", "\u00e9", "\u65e5", "\ud83d\ude00"};
+        Random random = new Random(seed);
+        BSTMountain mountain = new BSTMountain();
+        for(int i = 0; i < count; i++){
+            StringBuilder label = new StringBuilder();
+            int length = 1 + random.nextInt(5);
+            for(int j = 0; j < length; j++){
+                label.append(alphabet[random.nextInt(alphabet.length)]);
+            }
+            RestStop stop = dictionary == null ? new RestStop(label.toString())
+                : new RestStop(dictionary, label.toString());
+            mountain.add(TestMountains.stop(stop, random.nextInt(3), random.nextInt(2),
+                random.nextInt(2), random.nextInt(5) == 0 ? 1 : 0, random.nextInt(5) == 0 ? 1 : 0));
+        }
+        return mountain;
+    }
+
+    /**
+     * It saves the mountain, loads it back and checks that both give the same paths.
+     * @param mountain is the mountain.
+     * @param dictionary is the dictionary the mountain is loaded with, null for none.
+     * @throws IOException if the file cannot be written or read.
+     */
+    private void roundTrip(BSTMountain mountain, LabelDictionary dictionary) throws IOException{
+        File file = new File(dir, "mountain.bin");
+        mountain.save(file);
+        BSTMountain loaded = BSTMountain.load(file, dictionary);
+        assertEquals(TestMountains.contents(mountain), TestMountains.contents(loaded));
+        assertEquals(mountain.goDown(100000), loaded.goDown(100000));
+        assertEquals(mountain.goDown(1, 1, 1, 100000), loaded.goDown(1, 1, 1, 100000));
+        assertEquals(mountain.countPaths(), loaded.countPaths());
+    }
+
+    @Test
+    void roundTrip() throws IOException{
+        roundTrip(random(2000, 1, null), null);
+        roundTrip(random(2000, 2, null), new LabelDictionary());
+        roundTrip(random(2000, 3, new LabelDictionary()), null);
+        roundTrip(random(1, 4, null), null);
+        roundTrip(new BSTMountain(), null);
+    }
+
+    /**
+     * It saves a mountain of three reststops, b at the root, a on the left and c on the right.
+     * @return the bytes of the file.
+     * @throws IOException if the file cannot be written or read.
+     */
+    private byte[] small() throws IOException{
+        BSTMountain mountain = new BSTMountain();
+        mountain.addAll(Arrays.asList(new RestStop("a"), new RestStop("b"), new RestStop("c")));
+        File file = new File(dir, "small.bin");
+        mountain.save(file);
+        return Files.readAllBytes(file.toPath());
+    }
+
+    /**
+     * It writes the bytes to a file and loads it.
+     * @param bytes is the bytes of the file.
+     * @return the mountain.
+     * @throws IOException if the file cannot be read or it is not a saved mountain.
+     */
+    private BSTMountain load(byte[] bytes) throws IOException{
+        File file = new File(dir, "edited.bin");
+        Files.write(file.toPath(), bytes);
+        return BSTMountain.load(file);
+    }
+
+    @Test
+    void smallLoads() throws IOException{
+        BSTMountain loaded = load(small());
+        List<String> contents = TestMountains.contents(loaded);
+        assertEquals(3, contents.size());
+        assertEquals(3, loaded.size());
+    }
+
+    @Test
+    void wrongCount() throws IOException{
+        byte[] bytes = small();
+        ByteBuffer.wrap(bytes).putInt(COUNT, 4);
+        assertThrows(IllegalArgumentException.class, () -> load(bytes));
+        ByteBuffer.wrap(bytes).putInt(COUNT, 2);
+        assertThrows(IllegalArgumentException.class, () -> load(bytes));
+        ByteBuffer.wrap(bytes).putInt(COUNT, 0);
+        assertThrows(IllegalArgumentException.class, () -> load(bytes));
+    }
+
+    @Test
+    void labelsOutOfOrder() throws IOException{
+        byte[] bytes = small();
+        //the labels are at the end in preorder, b a c, swapping them puts a at the root and b on its left
+        int end = bytes.length;
+        assertEquals("bac", new String(bytes, end - 3, 3, "UTF-8"));
+        bytes[end - 3] = 'a';
+        bytes[end - 2] = 'b';
+        assertThrows(IllegalArgumentException.class, () -> load(bytes));
+
+        bytes[end - 3] = 'b';
+        bytes[end - 2] = 'b';
+        assertThrows(IllegalArgumentException.class, () -> load(bytes));
+    }
+
+    @Test
+    void wrongHeight() throws IOException{
+        byte[] bytes = small();
+        //the root is the first record, right after the header
+        assertEquals(1, bytes[MountainFile.HEADER]);
+        bytes[MountainFile.HEADER] = 2;
+        assertThrows(IllegalArgumentException.class, () -> load(bytes));
+        bytes[MountainFile.HEADER] = 0;
+        assertThrows(IllegalArgumentException.class, () -> load(bytes));
+    }
+
+    @Test
+    void damagedFile() throws IOException{
+        byte[] bytes = small();
+        assertThrows(IOException.class, () -> load(Arrays.copyOf(bytes, bytes.length - 1)));
+        assertThrows(IOException.class, () -> load(Arrays.copyOf(bytes, MountainFile.HEADER - 1)));
+        byte[] magic = bytes.clone();
+        magic[0] ++;
+        assertThrows(IOException.class, () -> load(magic));
+        assertThrows(IllegalArgumentException.class, () -> BSTMountain.load(null));
+    }
+}
@@ -0,0 +1,219 @@
+package project5;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Scanner;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests for MountainParser.
+ * Every file is read by the parser and by the Scanner reading that MountainHike
+ * used before the parser, and the reststops have to be the same.
+ *
+ * @author Oyujin Ulziibaatar
+ */
+class MountainParserTest {
+
+    @TempDir
+    File dir;
+
+    /**
+     * It writes the text to a file in UTF-8.
+     * @param text is the content of the file.
+     * @return the file.
+     * @throws IOException if the file cannot be written.
+     */
+    private File file(String text) throws IOException{
+        File file = File.createTempFile("mountain", ".txt", dir);
+        Files.write(file.toPath(), text.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    /**
+     * It writes a reststop on one line, so two lists of reststops can be compared.
+     * @param stop is the reststop.
+     * @return the label, the supplies and the obstacles.
+     */
+    private static String describe(RestStop stop){
+        return stop.getLabel() + " " + stop.printSupply() + " " + stop.printObstacle();
+    }
+
+    /**
+     * It reads the file with the parser.
+     * @param file is the input file.
+     * @return the reststops, in the order of the file.
+     * @throws IOException if the file cannot be read.
+     */
+    private static List<String> parsed(File file) throws IOException{
+        List<String> stops = new ArrayList<>();
+        MountainParser.parse(file, stop -> stops.add(describe(stop)));
+        return stops;
+    }
+
+    /**
+     * It reads the file the way MountainHike did before the parser:
+     * Scanner.nextLine, split on white spaces, and the same rules for the tokens.
+     * @param file is the input file.
+     * @return the reststops, in the order of the file.
+     * @throws IOException if the file cannot be opened.
+     */
+    private static List<String> scanned(File file) throws IOException{
+        List<String> stops = new ArrayList<>();
+        try(Scanner in = new Scanner(file, StandardCharsets.UTF_8)){
+            while(in.hasNextLine()){
+                String[] tokens = in.nextLine().split("\\s+");
+                //a line of only white spaces has no tokens at all,
+                //the old reading failed on it, the parser skips it like an empty line
+                if(tokens.length == 0 || tokens[0].equals("")){
+                    continue;
+                }
+                RestStop stop = new RestStop(tokens[0]);
+                boolean obs = false;
+                for(int j = 1; j < tokens.length; j++){
+                    if(!obs){
+                        if(tokens[j].equals("food")){
+                            stop.setFood(1);
+                        }
+                        else if(tokens[j].equals("raft")){
+                            stop.setRaft(1);
+                        }
+                        else if(tokens[j].equals("axe")){
+                            stop.setAxe(1);
+                        }
+                        else if(tokens[j].equals("river") || tokens[j].equals("fallen")){
+                            obs = true;
+                        }
+                    }
+                    if(obs){
+                        if(tokens[j].equals("river")){
+                            stop.setRiver(1);
+                        }
+                        else if(tokens[j].equals("fallen") && j + 1 < tokens.length
+                            && tokens[j + 1].equals("tree")){
+                            stop.setFallenTree(1);
+                        }
+                    }
+                }
+                stops.add(describe(stop));
+            }
+        }
+        return stops;
+    }
+
+    //the cases of line breaks and white spaces
+    private static final String[] TEXTS = {
+        "",
+        "50 food\n30 raft river\n70 axe fallen tree\n",
+        "50 food\r\n30 raft river\r\n70 axe fallen tree\r\n",
+        "50 food\r30 raft river\r70 axe fallen tree\r",
+        "50 food\n30 raft river\r\n70 axe\r\r\n\n80 river river food",
+        "50 food\n   \n\t\n \t \r\n30 raft\n",
+        "50 food\n  40 food\n\t45 raft\n60\n",
+        "50  food\t\traft \u000B axe\f river fallen  tree\n",
+        "50 food fallen fallen tree river food tree fallen\n",
+        "50 food\u008540 raft 60 axe 70\n",
+        "\u00e9t\u00e9 food\n\u65e5\u672c raft\nz\u00fcrich river\n",
+        "50 foods rafts axes rivers fallentree\n",
+        "\n\n\n",
+        "last line without a break axe"
+    };
+
+    @Test
+    void sameAsScanner() throws IOException{
+        for(String text : TEXTS){
+            File file = file(text);
+            assertEquals(scanned(file), parsed(file), text);
+        }
+    }
+
+    @Test
+    void sameAsScannerWithDictionary() throws IOException{
+        for(String text : TEXTS){
+            File file = file(text);
+            List<String> stops = new ArrayList<>();
+            MountainParser.parse(file, new LabelDictionary(), stop -> stops.add(describe(stop)));
+            assertEquals(scanned(file), stops, text);
+        }
+    }
+
+    @Test
+    void everyWindowBoundary() throws IOException{
+        String[] texts = {
+            "50 food\n30 raft river\n70 axe fallen tree\n10\n",
+            "50 food\r\n30 raft river\r\n70 axe fallen tree\r\n10",
+            "50 food\r30 raft river\r70 axe fallen tree\r10\r",
+            "50 food\n\r\n  \n\u00e9t\u00e9 raft\r\n\n70 axe fallen tree\n"
+        };
+        for(String text : texts){
+            File file = file(text);
+            List<String> expected = scanned(file);
+            long size = file.length();
+            int longest = 0;
+            for(String line : text.split("\r\n|\n|\r")){
+                longest = Math.max(longest, line.getBytes(StandardCharsets.UTF_8).length);
+            }
+            //the window has to hold a whole line and its line break
+            for(long window = longest + 2; window <= size + 1; window++){
+                List<String> stops = new ArrayList<>();
+                MountainParser.parse(file, null, stop -> stops.add(describe(stop)), window);
+                assertEquals(expected, stops, "window " + window + " of " + text);
+            }
+        }
+    }
+
+    @Test
+    void lineLongerThanWindow() throws IOException{
+        File file = file("50 food raft axe\n30\n");
+        assertThrows(IOException.class, () -> MountainParser.parse(file, null, stop -> { }, 8));
+    }
+
+    @Test
+    void lastLineBreak(){
+        ByteBuffer buffer = ByteBuffer.wrap("ab\ncd\r\nef".getBytes(StandardCharsets.UTF_8));
+        assertEquals(7, MountainParser.lastLineBreak(buffer, 9));
+        assertEquals(6, MountainParser.lastLineBreak(buffer, 6));
+        assertEquals(3, MountainParser.lastLineBreak(buffer, 5));
+        assertEquals(0, MountainParser.lastLineBreak(buffer, 2));
+    }
+
+    @Test
+    void parallelChunks() throws IOException{
+        StringBuilder text = new StringBuilder();
+        String[] breaks = {"\n", "\r\n", "\n\n", " \n"};
+        for(int i = 0; i < 500; i++){
+            text.append(i % 7 == 0 ? "  skipped" : String.valueOf(i * 37 % 1000))
+                .append(i % 3 == 0 ? " food" : "").append(i % 5 == 0 ? " raft river" : "")
+                .append(i % 11 == 0 ? " axe fallen tree" : "").append(breaks[i % breaks.length]);
+        }
+        text.append("999 food");
+        File file = file(text.toString());
+        List<String> expected = scanned(file);
+        for(int threads : new int[]{1, 2, 3, 8, 64, 5000}){
+            List<String> stops = new ArrayList<>();
+            int count = MountainParser.parseParallel(file, threads, stop -> stops.add(describe(stop)));
+            assertEquals(expected, stops, threads + " threads");
+            assertEquals(expected.size(), count);
+        }
+    }
+
+    @Test
+    void parallelSameAsScanner() throws IOException{
+        for(String text : TEXTS){
+            File file = file(text);
+            for(int threads : new int[]{1, 4, 64}){
+                List<String> stops = new ArrayList<>();
+                MountainParser.parseParallel(file, threads, stop -> stops.add(describe(stop)));
+                assertEquals(scanned(file), stops, text);
+            }
+        }
+    }
+}
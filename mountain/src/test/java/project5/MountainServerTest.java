@@ -0,0 +1,202 @@
+package project5;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for MountainServer, and for the deadline of MountainSearch it uses.
+ * A search has to stop on time even when it finds no path for a long while.
+ *
+ * @author Oyujin Ulziibaatar
+ */
+class MountainServerTest {
+
+    /**
+     * It builds a full mountain where every reststop has a food,
+     * so every leaf is the end of a legal path.
+     * @param levels is the number of levels.
+     * @return the mountain.
+     */
+    private static BSTMountain full(int levels){
+        List<RestStop> stops = new ArrayList<>();
+        for(int i = 0; i < (1 << levels) - 1; i++){
+            stops.add(TestMountains.stop(new RestStop(String.format("%08d", i)), 1, 0, 0, 0, 0));
+        }
+        return BSTMountain.buildFromSorted(stops);
+    }
+
+    /**
+     * It sends the requests to the server and reads the answers.
+     * @param server is the server.
+     * @param requests is the requests, one per line.
+     * @return the answers, one per line.
+     * @throws IOException if the streams cannot be read or written.
+     */
+    private static String[] serve(MountainServer server, String requests) throws IOException{
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        server.serve(new ByteArrayInputStream(requests.getBytes(StandardCharsets.UTF_8)), out);
+        return out.toString(StandardCharsets.UTF_8).split("\n");
+    }
+
+    @Test
+    void answers() throws IOException{
+        BSTMountain mountain = full(6);
+        MountainServer server = new MountainServer(mountain.snapshot());
+        try{
+            String[] answers = serve(server, "PING\nCOUNT\nCOUNT 0 1 1\nHAS\nFIRST 2\nFIRST 20000\nNOPE\n");
+            assertEquals("OK", answers[0]);
+            assertEquals("OK " + mountain.countPaths(), answers[1]);
+            assertEquals("OK " + mountain.countPaths(0, 1, 1), answers[2]);
+            assertEquals("OK true", answers[3]);
+            assertEquals("OK 2", answers[4]);
+            List<String> first = mountain.goDown(2);
+            assertEquals(first.get(0), answers[5]);
+            assertEquals(first.get(1), answers[6]);
+            assertEquals("ERR at most " + MountainServer.MAX_PATHS + " paths", answers[7]);
+            assertEquals("ERR unknown request", answers[8]);
+            assertEquals(9, answers.length);
+        }
+        finally{
+            server.close();
+        }
+    }
+
+    @Test
+    void searchStopsAtDeadline(){
+        BSTMountain mountain = full(14);
+        MountainSearch search = new MountainSearch();
+        search.setDeadline(System.nanoTime());
+        search.reset(mountain.snapshot().root(), 0, 0, 0, null);
+        //the time is checked once every 1024 nodes, not only when a path is found
+        assertThrows(CancellationException.class, () -> {
+            while(search.next()){
+                //go on until the search is stopped
+            }
+        });
+        assertEquals(1024, search.visited());
+    }
+
+    @Test
+    void searchStopsWhenInterrupted(){
+        BSTMountain mountain = full(14);
+        MountainSearch search = new MountainSearch();
+        search.setDeadline(System.nanoTime() + Duration.ofHours(1).toNanos());
+        search.reset(mountain.snapshot().root(), 0, 0, 0, null);
+        Thread.currentThread().interrupt();
+        try{
+            assertThrows(CancellationException.class, () -> {
+                while(search.next()){
+                    //go on until the search is stopped
+                }
+            });
+        }
+        finally{
+            Thread.interrupted();
+        }
+    }
+
+    @Test
+    void timeoutsGiveTheirPlaceBack() throws IOException{
+        BSTMountain mountain = full(18);
+        //one place and a very short timeout, every COUNT times out
+        MountainServer server = new MountainServer(mountain.snapshot(), 1, 1);
+        try{
+            StringBuilder requests = new StringBuilder();
+            for(int i = 0; i < 20; i++){
+                requests.append("COUNT\n");
+            }
+            String[] answers = assertTimeoutPreemptively(Duration.ofSeconds(30),
+                () -> serve(server, requests.toString()));
+            assertEquals(20, answers.length);
+            for(int i = 0; i < 20; i++){
+                assertEquals("ERR timeout", answers[i]);
+            }
+
+            //a request waits for a place before it is started,
+            //so if the place was lost, the next request would wait for it forever,
+            //and with a long timeout it has to be answered
+            server.setTimeout(Duration.ofMinutes(1).toMillis());
+            String[] after = assertTimeoutPreemptively(Duration.ofSeconds(30),
+                () -> serve(server, "PING\nHAS\n"));
+            assertEquals("OK", after[0]);
+            assertEquals("OK true", after[1]);
+            assertEquals(2, after.length);
+        }
+        finally{
+            server.close();
+        }
+    }
+
+    @Test
+    void outputFailureStopsTheReading() throws IOException{
+        MountainServer server = new MountainServer(full(6).snapshot(), 2, 60000);
+        try{
+            StringBuilder requests = new StringBuilder();
+            for(int i = 0; i < 100000; i++){
+                requests.append("COUNT\n");
+            }
+            ByteArrayInputStream in = new ByteArrayInputStream(requests.toString().getBytes(StandardCharsets.UTF_8));
+            //the client reads the first answers and then goes away
+            OutputStream out = new OutputStream(){
+                private boolean written = false;
+
+                @Override
+                public void write(int b) throws IOException{
+                    write(new byte[]{(byte) b}, 0, 1);
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException{
+                    if(written){
+                        throw new IOException("the client is gone");
+                    }
+                    written = true;
+                }
+            };
+            IOException e = assertTimeoutPreemptively(Duration.ofSeconds(30),
+                () -> assertThrows(IOException.class, () -> server.serve(in, out)));
+            assertEquals("the client is gone", e.getMessage());
+            assertTrue(in.available() > 0, "the requests were all read");
+
+            //every place was given back, so the server still answers
+            String[] answers = assertTimeoutPreemptively(Duration.ofSeconds(30),
+                () -> serve(server, "PING\nPING\nPING\n"));
+            assertEquals(3, answers.length);
+            for(String answer : answers){
+                assertEquals("OK", answer);
+            }
+        }
+        finally{
+            server.close();
+        }
+    }
+
+    @Test
+    void badRequests(){
+        MountainServer server = new MountainServer(full(3).snapshot());
+        try{
+            assertTrue(server.answer("COUNT 1 2").startsWith("ERR"));
+            assertTrue(server.answer("FIRST -1").startsWith("ERR"));
+            assertTrue(server.answer("HAS a b c").startsWith("ERR"));
+            assertEquals("OK 0", server.answer("FIRST 0"));
+        }
+        finally{
+            server.close();
+        }
+        assertThrows(IllegalArgumentException.class, () -> new MountainServer(null));
+        assertThrows(IllegalArgumentException.class, () -> new MountainServer(full(3).snapshot(), 0, 1));
+    }
+}
@@ -0,0 +1,97 @@
+package project5;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for goDownParallel and ParallelSearch.
+ * The parallel search has to add the same paths as goDown, in the same order,
+ * on mountains that are split between threads and on ones that are too low to split.
+ *
+ * @author Oyujin Ulziibaatar
+ */
+class ParallelSearchTest {
+
+    private ForkJoinPool pool;
+
+    @BeforeEach
+    void startPool(){
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterEach
+    void stopPool(){
+        pool.shutdownNow();
+    }
+
+    /**
+     * It checks that goDownParallel adds the same paths as goDown.
+     * @param mountain is the mountain.
+     * @param threshold is the height below which the search is not split.
+     * @return the paths.
+     */
+    private List<String> sameAsGoDown(BSTMountain mountain, int threshold){
+        mountain.goDown();
+        List<String> expected = new ArrayList<>(mountain.getSolution());
+        mountain.getSolution().clear();
+        mountain.goDownParallel(pool, threshold);
+        assertEquals(expected, mountain.getSolution(), "threshold " + threshold);
+        mountain.getSolution().clear();
+        return expected;
+    }
+
+    @Test
+    void randomMountains(){
+        Random random = new Random(4);
+        for(int round = 0; round < 40; round++){
+            BSTMountain mountain = TestMountains.random(random, 1 + random.nextInt(2000));
+            for(int threshold : new int[]{0, 1, 3, BSTMountain.PARALLEL_THRESHOLD}){
+                sameAsGoDown(mountain, threshold);
+            }
+        }
+    }
+
+    @Test
+    void splitBetweenThreads(){
+        //every leaf of a full mountain with a food on every reststop is a legal path
+        List<RestStop> stops = new ArrayList<>();
+        for(int i = 0; i < (1 << 15) - 1; i++){
+            stops.add(TestMountains.stop(new RestStop(String.format("%06d", i)), 1, 0, 0, 0, 0));
+        }
+        BSTMountain full = BSTMountain.buildFromSorted(stops);
+        assertTrue(full.snapshot().root().height >= BSTMountain.PARALLEL_THRESHOLD, "the search is split");
+        assertEquals(1 << 14, sameAsGoDown(full, BSTMountain.PARALLEL_THRESHOLD).size());
+        assertEquals(1 << 14, sameAsGoDown(full, 0).size());
+
+        //a random mountain that is high enough to be split at the default threshold
+        BSTMountain high = TestMountains.random(new Random(6), 20000);
+        assertTrue(high.snapshot().root().height >= BSTMountain.PARALLEL_THRESHOLD, "the search is split");
+        sameAsGoDown(high, BSTMountain.PARALLEL_THRESHOLD);
+        sameAsGoDown(high, 2);
+    }
+
+    @Test
+    void smallMountains(){
+        BSTMountain mountain = new BSTMountain();
+        sameAsGoDown(mountain, 0);
+        mountain.add(new RestStop("a"));
+        assertEquals(1, sameAsGoDown(mountain, 0).size());
+        assertEquals(1, sameAsGoDown(mountain, BSTMountain.PARALLEL_THRESHOLD).size());
+    }
+
+    @Test
+    void badArguments(){
+        BSTMountain mountain = new BSTMountain();
+        assertThrows(IllegalArgumentException.class, () -> mountain.goDownParallel(null, 1));
+        assertThrows(IllegalArgumentException.class, () -> mountain.goDownParallel(pool, -1));
+    }
+}
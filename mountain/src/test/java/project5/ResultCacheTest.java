@@ -0,0 +1,230 @@
+package project5;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for ResultCache and the searches of BSTMountain that use it.
+ * A cached result has to be the one the search would give now,
+ * so the results are thrown away when the mountain changes,
+ * and a cache cannot be shared by two mountains.
+ *
+ * @author Oyujin Ulziibaatar
+ */
+class ResultCacheTest {
+
+    /**
+     * It builds a mountain where every reststop has a food.
+     * @param count is the number of reststops.
+     * @return the mountain.
+     */
+    private static BSTMountain mountain(int count){
+        List<RestStop> stops = new ArrayList<>();
+        for(int i = 0; i < count; i++){
+            stops.add(TestMountains.stop(new RestStop(String.format("%05d", i * 2)), 1, 0, 0, 0, 0));
+        }
+        return BSTMountain.buildFromSorted(stops);
+    }
+
+    @Test
+    void hitsAndMisses(){
+        BSTMountain mountain = mountain(100);
+        ResultCache cache = new ResultCache(1L << 20);
+        mountain.setCache(cache);
+
+        List<String> paths = mountain.goDown(10);
+        assertEquals(1, cache.getMisses());
+        assertEquals(0, cache.getHits());
+        assertSame(paths, mountain.goDown(10));
+        assertEquals(1, cache.getHits());
+
+        //another limit or other supplies are another query
+        mountain.goDown(5);
+        mountain.goDown(1, 0, 0, 10);
+        assertEquals(3, cache.getMisses());
+
+        long count = mountain.countPaths();
+        assertEquals(count, mountain.countPaths());
+        assertTrue(mountain.hasPath());
+        assertTrue(mountain.hasPath());
+        assertEquals(3, cache.getHits());
+        assertEquals(5, cache.getMisses());
+        assertEquals(5, cache.size());
+    }
+
+    @Test
+    void evictsAtTheBudget(){
+        BSTMountain mountain = new BSTMountain();
+        //a count weighs as much as an empty entry, so three of them fit
+        ResultCache cache = new ResultCache(3 * 96);
+        mountain.setCache(cache);
+        ResultCache.Key[] keys = new ResultCache.Key[4];
+        for(int i = 0; i < keys.length; i++){
+            keys[i] = new ResultCache.Key(ResultCache.COUNT, i, 0, 0, 0);
+        }
+        cache.put(0, keys[0], 0L);
+        cache.put(0, keys[1], 1L);
+        cache.put(0, keys[2], 2L);
+        assertEquals(0, cache.getEvictions());
+        assertEquals(3 * 96, cache.getWeight());
+
+        //the first result was used last, so the second is the oldest
+        assertNotNull(cache.get(0, keys[0]));
+        cache.put(0, keys[3], 3L);
+        assertEquals(1, cache.getEvictions());
+        assertEquals(3, cache.size());
+        assertNull(cache.get(0, keys[1]));
+        assertEquals(0L, cache.get(0, keys[0]));
+        assertEquals(3L, cache.get(0, keys[3]));
+        assertTrue(cache.getWeight() <= cache.getBudget());
+
+        //a result heavier than the whole budget is not kept
+        List<String> paths = new ArrayList<>();
+        paths.add("a long path that weighs more than the budget of the cache");
+        paths.add("another long path that weighs more than the budget of the cache");
+        cache.put(0, new ResultCache.Key(ResultCache.PATHS, 0, 0, 0, 2), paths);
+        assertEquals(3, cache.size());
+        assertEquals(1, cache.getEvictions());
+    }
+
+    @Test
+    void changesThrowResultsAway(){
+        BSTMountain mountain = mountain(100);
+        BSTMountain plain = mountain(100);
+        ResultCache cache = new ResultCache(1L << 20);
+        mountain.setCache(cache);
+        assertEquals(plain.goDown(1000), mountain.goDown(1000));
+        assertEquals(plain.countPaths(), mountain.countPaths());
+
+        RestStop stop = TestMountains.stop(new RestStop("00001"), 1, 0, 0, 0, 0);
+        mountain.add(stop);
+        plain.add(TestMountains.stop(new RestStop("00001"), 1, 0, 0, 0, 0));
+        assertEquals(plain.goDown(1000), mountain.goDown(1000));
+        assertEquals(plain.countPaths(), mountain.countPaths());
+        assertEquals(1, cache.getInvalidations());
+        assertEquals(0, cache.getHits());
+
+        assertTrue(mountain.remove("00000"));
+        assertTrue(plain.remove("00000"));
+        assertEquals(plain.goDown(1000), mountain.goDown(1000));
+        assertEquals(plain.countPaths(), mountain.countPaths());
+        assertEquals(2, cache.getInvalidations());
+        assertEquals(0, cache.getHits());
+
+        //nothing was removed, so the results are kept
+        assertEquals(false, mountain.remove("not there"));
+        assertEquals(plain.countPaths(), mountain.countPaths());
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.getInvalidations());
+    }
+
+    @Test
+    void cacheBelongsToOneMountain(){
+        BSTMountain first = mountain(100);
+        BSTMountain second = mountain(10);
+        //both mountains are at the same revision, but they have other paths
+        assertEquals(first.getRevision(), second.getRevision());
+        ResultCache cache = new ResultCache(1L << 20);
+        first.setCache(cache);
+        first.setCache(cache);
+        long count = first.countPaths();
+        assertThrows(IllegalArgumentException.class, () -> second.setCache(cache));
+        assertNull(second.getCache());
+
+        //once the first mountain lets the cache go, its results are not given to the second
+        first.setCache(null);
+        second.setCache(cache);
+        assertEquals(0, cache.size());
+        assertEquals(mountain(10).countPaths(), second.countPaths());
+        assertTrue(count != second.countPaths());
+        assertThrows(IllegalArgumentException.class, () -> first.setCache(cache));
+
+        //setting another cache lets the old one go
+        second.setCache(new ResultCache(1L << 20));
+        first.setCache(cache);
+        assertSame(cache, first.getCache());
+    }
+
+    @Test
+    void mainSearchIsRecordedWithTheCache() throws IOException{
+        BSTMountain mountain = mountain(100);
+        List<RecordedEvent> events;
+        Path file = Files.createTempFile("goDown", ".jfr");
+        try(Recording recording = new Recording()){
+            recording.enable("project5.GoDown").withoutThreshold();
+            recording.start();
+            mountain.setCache(new ResultCache(1L << 20));
+            //a miss searches, a hit does not, both are the main search
+            mountain.goDown();
+            mountain.goDown();
+            recording.stop();
+            recording.dump(file);
+            events = RecordingFile.readAllEvents(file);
+        }
+        finally{
+            Files.deleteIfExists(file);
+        }
+        long paths = mountain.countPaths();
+        assertEquals(2, events.size());
+        for(RecordedEvent event : events){
+            assertEquals("all", event.getString("mode"));
+            assertEquals(paths, event.getLong("solutions"));
+        }
+        assertFalse(events.get(0).getBoolean("cacheHit"));
+        assertTrue(events.get(0).getLong("nodesVisited") > 0);
+        assertTrue(events.get(1).getBoolean("cacheHit"));
+        assertEquals(0, events.get(1).getLong("nodesVisited"));
+        assertEquals(2 * paths, mountain.getSolution().size());
+    }
+
+    /**
+     * It gives the cache to a mountain that is dropped right away,
+     * without letting the cache go.
+     * @param cache is the cache.
+     */
+    private static void giveToALostMountain(ResultCache cache){
+        BSTMountain lost = mountain(100);
+        lost.setCache(cache);
+        lost.countPaths();
+    }
+
+    @Test
+    void lostMountainGivesTheCacheUp() throws InterruptedException{
+        ResultCache cache = new ResultCache(1L << 20);
+        giveToALostMountain(cache);
+        BSTMountain second = mountain(10);
+        //the cache can be given to the second mountain once the first one is collected
+        boolean given = false;
+        for(int i = 0; i < 100 && !given; i++){
+            System.gc();
+            try{
+                second.setCache(cache);
+                given = true;
+            }
+            catch(IllegalArgumentException e){
+                Thread.sleep(10);
+            }
+        }
+        assertTrue(given, "the lost mountain still has the cache");
+        assertSame(cache, second.getCache());
+        assertEquals(0, cache.size());
+        assertEquals(mountain(10).countPaths(), second.countPaths());
+        assertThrows(IllegalArgumentException.class, () -> mountain(10).setCache(cache));
+    }
+}
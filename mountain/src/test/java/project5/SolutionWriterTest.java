@@ -0,0 +1,167 @@
+package project5;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for SolutionWriter.
+ * The bytes have to be the same as printing every path with PrintStream.println
+ * in the same charset, for every label, however long, and every character,
+ * even the ones the charset does not have.
+ *
+ * @author Oyujin Ulziibaatar
+ */
+class SolutionWriterTest {
+
+    //ASCII, a char ISO-8859-1 has, chars it does not have, a surrogate pair and a lone surrogate
+    private static final String[] PIECES = {"a", "Z", "9", "-", "\u00e9", "\u00ff", "\u65e5", "\u0100",
+        "\ud83d\ude00", "\ud800"};
+
+    /**
+     * It makes a random label from the pieces.
+     * @param random is the random numbers.
+     * @param length is the number of pieces.
+     * @return the label.
+     */
+    private static String label(Random random, int length){
+        StringBuilder label = new StringBuilder();
+        for(int i = 0; i < length; i++){
+            label.append(PIECES[random.nextInt(PIECES.length)]);
+        }
+        return label.toString();
+    }
+
+    /**
+     * It prints the paths the way the solution was printed before, one println each.
+     * @param paths is the paths.
+     * @param charset is the charset of the output.
+     * @return the bytes printed.
+     */
+    private static byte[] printed(List<String> paths, Charset charset){
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(bytes, false, charset);
+        for(String path : paths){
+            out.println(path);
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * It builds a full mountain of 4 levels with the given labels,
+     * the labels are put in order by a number in front of them.
+     * @param labels is the 15 labels.
+     * @param dictionary is the dictionary of the labels, null to keep them as Strings.
+     * @return the mountain.
+     */
+    private static BSTMountain mountain(List<String> labels, LabelDictionary dictionary){
+        List<RestStop> stops = new ArrayList<>();
+        for(int i = 0; i < labels.size(); i++){
+            String label = String.format("%02d", i) + labels.get(i);
+            RestStop stop = dictionary == null ? new RestStop(label) : new RestStop(dictionary, label);
+            stops.add(TestMountains.stop(stop, 1, 0, 0, 0, 0));
+        }
+        return BSTMountain.buildFromSorted(stops);
+    }
+
+    /**
+     * It writes every path of the mountain and checks the bytes against println.
+     * @param mountain is the mountain.
+     * @param charset is the charset.
+     * @param size is the size of the buffer of the writer.
+     * @throws IOException if the writer fails.
+     */
+    private static void sameAsPrintln(BSTMountain mountain, Charset charset, int size) throws IOException{
+        List<String> paths = mountain.goDown(Integer.MAX_VALUE);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        SolutionWriter out = new SolutionWriter(bytes, charset, size);
+        assertEquals(paths.size(), mountain.goDown(out));
+        out.flush();
+        assertEquals(paths.size(), out.getLines());
+        assertArrayEquals(printed(paths, charset), bytes.toByteArray(), charset + " with a buffer of " + size);
+    }
+
+    @Test
+    void pathsAreLikePrintln() throws IOException{
+        Random random = new Random(25);
+        for(int round = 0; round < 20; round++){
+            List<String> labels = new ArrayList<>();
+            for(int i = 0; i < 15; i++){
+                labels.add(label(random, random.nextInt(12)));
+            }
+            for(Charset charset : new Charset[]{StandardCharsets.UTF_8, StandardCharsets.ISO_8859_1}){
+                for(int size : new int[]{16, 17, 100, SolutionWriter.DEFAULT_BUFFER}){
+                    sameAsPrintln(mountain(labels, null), charset, size);
+                    sameAsPrintln(mountain(labels, new LabelDictionary()), charset, size);
+                }
+            }
+        }
+    }
+
+    @Test
+    void labelsLongerThanTheBuffer() throws IOException{
+        Random random = new Random(26);
+        StringBuilder ascii = new StringBuilder();
+        for(int i = 0; i < SolutionWriter.DEFAULT_BUFFER + 1000; i++){
+            ascii.append((char) ('a' + random.nextInt(26)));
+        }
+        List<String> labels = new ArrayList<>();
+        for(int i = 0; i < 15; i++){
+            //long ASCII labels, long labels of any chars, and ASCII labels that end with other chars
+            switch(i % 3){
+                case 0:
+                    labels.add(ascii.toString());
+                    break;
+                case 1:
+                    labels.add(label(random, SolutionWriter.DEFAULT_BUFFER / 2 + 10));
+                    break;
+                default:
+                    labels.add(ascii + label(random, 50));
+            }
+        }
+        for(Charset charset : new Charset[]{StandardCharsets.UTF_8, StandardCharsets.ISO_8859_1}){
+            sameAsPrintln(mountain(labels, null), charset, SolutionWriter.DEFAULT_BUFFER);
+            sameAsPrintln(mountain(labels, null), charset, 16);
+        }
+    }
+
+    @Test
+    void writeLine() throws IOException{
+        for(Charset charset : new Charset[]{StandardCharsets.UTF_8, StandardCharsets.ISO_8859_1}){
+            List<String> lines = new ArrayList<>();
+            lines.add("");
+            lines.add("plain");
+            lines.add(String.join("", PIECES));
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            SolutionWriter out = new SolutionWriter(bytes, charset, 16);
+            for(String line : lines){
+                out.writeLine(line);
+            }
+            out.close();
+            assertEquals(3, out.getLines());
+            assertArrayEquals(printed(lines, charset), bytes.toByteArray());
+        }
+    }
+
+    @Test
+    void badArguments(){
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        assertThrows(IllegalArgumentException.class, () -> new SolutionWriter((OutputStream) null));
+        assertThrows(IllegalArgumentException.class, () -> new SolutionWriter(bytes, null, 100));
+        assertThrows(IllegalArgumentException.class, () -> new SolutionWriter(bytes, StandardCharsets.UTF_8, 15));
+        assertThrows(IllegalArgumentException.class,
+            () -> new SolutionWriter(bytes, StandardCharsets.UTF_8, 100).writeLine(null));
+    }
+}
@@ -0,0 +1,223 @@
+package project5;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * TestMountains has the functions the tests share:
+ * making reststops, listing the reststops of a mountain,
+ * and checking that a mountain is a valid AVL tree.
+ *
+ * @author Oyujin Ulziibaatar
+ */
+final class TestMountains {
+
+    /**
+     * The class only has static functions.
+     */
+    private TestMountains(){
+    }
+
+    /**
+     * It sets the supplies and the obstacles of a reststop.
+     * @param stop is the reststop.
+     * @param food is the number of foods.
+     * @param raft is the number of rafts.
+     * @param axe is the number of axes.
+     * @param river is the number of rivers.
+     * @param fallenTree is the number of fallen trees.
+     * @return the reststop.
+     */
+    static RestStop stop(RestStop stop, int food, int raft, int axe, int river, int fallenTree){
+        stop.setFood(food);
+        stop.setRaft(raft);
+        stop.setAxe(axe);
+        stop.setRiver(river);
+        stop.setFallenTree(fallenTree);
+        return stop;
+    }
+
+    /**
+     * It makes a reststop with random supplies and obstacles.
+     * Most reststops have a food, some have rafts and axes,
+     * and some have rivers and fallen trees, a few of them two.
+     * @param random is the random numbers.
+     * @param label is the label.
+     * @return the reststop.
+     */
+    static RestStop randomStop(Random random, String label){
+        int river = random.nextInt(6) == 0 ? 1 + random.nextInt(2) : 0;
+        int fallenTree = random.nextInt(6) == 0 ? 1 + random.nextInt(2) : 0;
+        return stop(new RestStop(label), random.nextInt(4) == 0 ? 0 : 1 + random.nextInt(2),
+            random.nextInt(3) == 0 ? 1 : 0, random.nextInt(3) == 0 ? 1 : 0, river, fallenTree);
+    }
+
+    /**
+     * It builds a mountain by adding random reststops one at a time.
+     * The labels are numbers up to twice the count, so some of them are added twice.
+     * @param random is the random numbers.
+     * @param count is the number of reststops added.
+     * @return the mountain.
+     */
+    static BSTMountain random(Random random, int count){
+        BSTMountain mountain = new BSTMountain();
+        for(int i = 0; i < count; i++){
+            mountain.add(randomStop(random, String.format("%05d", random.nextInt(2 * count + 1))));
+        }
+        return mountain;
+    }
+
+    /**
+     * It builds a full mountain where every reststop has a food,
+     * so every leaf is the end of a legal path.
+     * @param levels is the number of levels.
+     * @return the mountain.
+     */
+    static BSTMountain full(int levels){
+        List<RestStop> stops = new ArrayList<>();
+        for(int i = 0; i < (1 << levels) - 1; i++){
+            stops.add(stop(new RestStop(String.format("%08d", i)), 1, 0, 0, 0, 0));
+        }
+        return BSTMountain.buildFromSorted(stops);
+    }
+
+    /**
+     * It writes a reststop on one line.
+     * @param stop is the reststop.
+     * @return the label, the supplies and the obstacles.
+     */
+    static String describe(RestStop stop){
+        return stop.getLabel() + " " + stop.printSupply() + " " + stop.printObstacle();
+    }
+
+    /**
+     * It lists the reststops of the mountain in order, and checks the mountain.
+     * @param mountain is the mountain.
+     * @return the reststops, from the smallest label to the biggest.
+     */
+    static List<String> contents(BSTMountain mountain){
+        List<String> stops = new ArrayList<>();
+        BSTMountain.Node root = mountain.root();
+        check(root, null, null);
+        inOrder(root, stops);
+        assertEquals(mountain.size(), stops.size(), "size");
+        return stops;
+    }
+
+    /**
+     * It adds the reststops of the subtree to the list in order.
+     * @param node is the root of the subtree.
+     * @param stops is the list.
+     */
+    private static void inOrder(BSTMountain.Node node, List<String> stops){
+        if(node != null){
+            inOrder(node.left, stops);
+            stops.add(describe(node.data));
+            inOrder(node.right, stops);
+        }
+    }
+
+    /**
+     * It finds the legal paths the way the first goDown did: recursively,
+     * with the supplies kept in ints, and without skipping any subtree
+     * for what it needs. A child is a cliff if it is lower than its parent by more than 1.
+     * @param root is the root of the mountain, it can be null.
+     * @param food is the number of foods the hiker starts with.
+     * @param raft is the number of rafts the hiker starts with.
+     * @param axe is the number of axes the hiker starts with.
+     * @return the legal paths, the left ones first.
+     */
+    static List<String> reference(BSTMountain.Node root, int food, int raft, int axe){
+        List<String> paths = new ArrayList<>();
+        if(root != null){
+            reference(root, "", food, raft, axe, paths);
+        }
+        return paths;
+    }
+
+    /**
+     * The hiker arrives at the node with the given supplies and goes on down.
+     * @param stop is the node.
+     * @param path is the labels before the node, each followed by a space.
+     * @param food is the number of foods the hiker has.
+     * @param raft is the number of rafts the hiker has.
+     * @param axe is the number of axes the hiker has.
+     * @param paths is the list the legal paths are added to.
+     */
+    private static void reference(BSTMountain.Node stop, String path, int food, int raft, int axe,
+        List<String> paths){
+        RestStop data = stop.data;
+        food += data.getFood();
+        raft += data.getRaft();
+        axe += data.getAxe();
+        if(food == 0 && stop.height != 0){
+            return;
+        }
+        if(axe < data.getFallenTree()){
+            return;
+        }
+        axe -= data.getFallenTree();
+        if(raft < data.getRiver()){
+            return;
+        }
+        raft -= data.getRiver();
+        if(stop.height == 0){
+            paths.add(path + data.getLabel());
+            return;
+        }
+        //the hiker eats one food to go down, both ways start with the same supplies
+        food --;
+        if(stop.left != null && stop.left.height == stop.height - 1){
+            reference(stop.left, path + data.getLabel() + " ", food, raft, axe, paths);
+        }
+        if(stop.right != null && stop.right.height == stop.height - 1){
+            reference(stop.right, path + data.getLabel() + " ", food, raft, axe, paths);
+        }
+    }
+
+    /**
+     * It counts the children that are cliffs in the subtree.
+     * @param node is the root of the subtree.
+     * @return the number of cliffs.
+     */
+    static int cliffs(BSTMountain.Node node){
+        if(node == null){
+            return 0;
+        }
+        int cliffs = cliffs(node.left) + cliffs(node.right);
+        if(node.left != null && node.left.height < node.height - 1){
+            cliffs ++;
+        }
+        if(node.right != null && node.right.height < node.height - 1){
+            cliffs ++;
+        }
+        return cliffs;
+    }
+
+    /**
+     * It checks that the subtree is ordered, balanced, and that every node
+     * has the right height and the right ways down.
+     * @param node is the root of the subtree.
+     * @param low is the reststop every label has to be bigger than, null if there is none.
+     * @param high is the reststop every label has to be smaller than, null if there is none.
+     * @return the height of the subtree, -1 if it is empty.
+     */
+    static int check(BSTMountain.Node node, RestStop low, RestStop high){
+        if(node == null){
+            return -1;
+        }
+        assertTrue(low == null || low.compareTo(node.data) < 0, "order of " + node.data.getLabel());
+        assertTrue(high == null || node.data.compareTo(high) < 0, "order of " + node.data.getLabel());
+        int left = check(node.left, low, node.data);
+        int right = check(node.right, node.data, high);
+        assertTrue(Math.abs(left - right) <= 1, "balance of " + node.data.getLabel());
+        assertEquals(Math.max(left, right) + 1, node.height, "height of " + node.data.getLabel());
+        int ways = (left >= 0 && left == node.height - 1 ? BSTMountain.LEFT : 0)
+            | (right >= 0 && right == node.height - 1 ? BSTMountain.RIGHT : 0);
+        assertEquals(ways, node.ways, "ways of " + node.data.getLabel());
+        return node.height;
+    }
+}